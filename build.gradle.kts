@@ -7,6 +7,7 @@ plugins {
     `maven-publish`
     id("com.gradleup.shadow") version "9.2.2"
     alias(libs.plugins.lombok);
+    alias(libs.plugins.jmh)
 }
 
 project.group = "org.reprogle"
@@ -51,6 +52,22 @@ dependencies {
     compileOnly(libs.boosted.yaml)
     implementation(libs.bstats)
     compileOnly(libs.guice)
+    compileOnly(libs.sqlite.jdbc)
+
+    // Benchmarks run without a server, so they need on the classpath what the server would otherwise provide
+    jmh(libs.paper.api)
+    jmh(libs.boosted.yaml)
+    jmh(libs.guice)
+    jmh(libs.sqlite.jdbc)
+}
+
+// ./gradlew jmh runs every benchmark; pass -PjmhIncludes=<regex> to pick some
+jmh {
+    includes.set(listOf(project.findProperty("jmhIncludes")?.toString() ?: ".*"))
+    fork.set(1)
+    warmupIterations.set(2)
+    iterations.set(3)
+    resultFormat.set("JSON")
 }
 
 tasks.withType<JavaCompile> {
@@ -0,0 +1,159 @@
+package org.reprogle.bytelib.config;
+
+import dev.dejvokep.boostedyaml.YamlDocument;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import net.kyori.adventure.title.Title;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MiniMessageTranslator} with the way {@code tr} used to render: look up the raw string, parse the
+ * prefix, and parse the whole template on every call.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=TranslatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TranslatorBenchmark {
+    private static final String LANG = """
+            prefix: '<gradient:#ff5555:#ffaa00>[Honeypot]</gradient> '
+            protected: '<prefix><gray>This block is protected.</gray>'
+            tripped: '<prefix><gray>Player <yellow><player></yellow> tripped <red><count></red> honeypots.</gray>'
+            alert:
+              title: '<red><bold>Honeypot</bold></red>'
+              subtitle: '<gray><player> broke a honeypot</gray>'
+            """;
+    private static final Title.Times TIMES = Title.Times.times(Duration.ofMillis(250), Duration.ofSeconds(2), Duration.ofMillis(250));
+
+    private final MiniMessage mm = MiniMessage.miniMessage();
+    private BytePluginConfig cfg;
+    private MiniMessageTranslator translator;
+
+    @Setup
+    public void setUp() throws IOException {
+        YamlDocument lang = YamlDocument.create(new ByteArrayInputStream(LANG.getBytes(StandardCharsets.UTF_8)));
+        cfg = new FixedConfig(lang);
+        translator = new MiniMessageTranslator(cfg);
+    }
+
+    // ----------------------
+    // No resolvers
+    // ----------------------
+
+    @Benchmark
+    public Component staticNaive() {
+        return naive("protected");
+    }
+
+    @Benchmark
+    public Component staticCached() {
+        return translator.tr("protected");
+    }
+
+    // ----------------------
+    // Unparsed placeholders
+    // ----------------------
+
+    @Benchmark
+    public Component placeholdersNaive() {
+        return naive("tripped", Placeholder.unparsed("player", "Notch"), Placeholder.unparsed("count", "3"));
+    }
+
+    @Benchmark
+    public Component placeholdersCached() {
+        return translator.tr("tripped", Placeholder.unparsed("player", "Notch"), Placeholder.unparsed("count", "3"));
+    }
+
+    // ----------------------
+    // Title (two entries)
+    // ----------------------
+
+    @Benchmark
+    public Title titleNaive() {
+        TagResolver player = Placeholder.unparsed("player", "Notch");
+        return Title.title(naive("alert.title", player), naive("alert.subtitle", player), TIMES);
+    }
+
+    @Benchmark
+    public Title titleCached() {
+        return translator.title("alert", TIMES, Placeholder.unparsed("player", "Notch"));
+    }
+
+    /**
+     * {@code tr} as it was before entries were cached.
+     */
+    private Component naive(String key, TagResolver... resolvers) {
+        String raw = cfg.lang().getString(key);
+        if (raw == null) return Component.empty();
+
+        List<TagResolver> all = new ArrayList<>(resolvers.length + 1);
+        String prefixRaw = cfg.lang().getString("prefix");
+        all.add(Placeholder.component("prefix", prefixRaw == null ? Component.empty() : mm.deserialize(prefixRaw)));
+        all.addAll(Arrays.asList(resolvers));
+        return mm.deserialize(raw, TagResolver.resolver(all));
+    }
+
+    /**
+     * Serves one in-memory lang document; nothing is ever reloaded.
+     */
+    private record FixedConfig(YamlDocument lang) implements BytePluginConfig {
+        @Override
+        public YamlDocument config() {
+            return lang;
+        }
+
+        @Override
+        public String locale() {
+            return "en_US";
+        }
+
+        @Override
+        public YamlDocument yaml(String name) {
+            return name.equals("lang") ? lang : null;
+        }
+
+        @Override
+        public YamlDocument require(String name) {
+            return lang;
+        }
+
+        @Override
+        public void register(String name, BoostedYamlPluginConfig.YamlSpec spec) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Record> ConfigBinding<T> bind(String name, String path, Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void reload(String name) {
+        }
+
+        @Override
+        public void reload() {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.reprogle.bytelib.config;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reprogle.bytelib.db.sqlite.BenchDatabases;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots a {@link BoostedYamlPluginConfig} the way a plugin does on every server start, with and without the
+ * {@link YamlSnapshotIndex}: config and lang, then {@value #EXTRA_DOCS} registered documents and a full reload. Every
+ * document has {@value #ENTRIES} entries and the files on disk are already up to date, as on any restart after the
+ * first, so the snapshot index matches every file.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=YamlStartupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class YamlStartupBenchmark {
+    private static final int EXTRA_DOCS = 4;
+    private static final int ENTRIES = 3_000;
+    private static final int PER_SECTION = 30;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private final Map<String, byte[]> resources = new HashMap<>();
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty(YamlSnapshotIndex.PROPERTY, Boolean.toString(cache));
+        dir = Files.createTempDirectory("bytelib-yaml-");
+
+        resources.put("config.yml", defaults("file-version", "language: en_US\n", "option"));
+        resources.put("lang/en_US.yml", defaults("language-version", "", "message"));
+        for (int i = 0; i < EXTRA_DOCS; i++) {
+            resources.put(extra(i), defaults("file-version", "", "entry"));
+        }
+
+        // The first boot writes every file (and the index), so the measured boots all find them up to date
+        boot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.clearProperty(YamlSnapshotIndex.PROPERTY);
+        BenchDatabases.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public BytePluginConfig boot() {
+        BoostedYamlPluginConfig cfg = new BoostedYamlPluginConfig(null, "Bench", this::resource, dir,
+                ComponentLogger.logger("ByteLib-Bench"));
+        for (int i = 0; i < EXTRA_DOCS; i++) {
+            cfg.register("extra-" + i, BoostedYamlPluginConfig.YamlSpec.of(dir.resolve(extra(i)), extra(i), "file-version"));
+        }
+        cfg.reload();
+        return cfg;
+    }
+
+    private InputStream resource(String path) {
+        byte[] bytes = resources.get(path);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    private static String extra(int i) {
+        return "data/extra-" + i + ".yml";
+    }
+
+    /**
+     * A commented document of {@value #ENTRIES} entries in sections of {@value #PER_SECTION}.
+     */
+    private static byte[] defaults(String versionKey, String header, String prefix) {
+        StringBuilder out = new StringBuilder(versionKey).append(": 1\n").append(header);
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i % PER_SECTION == 0) {
+                out.append("# Section ").append(i / PER_SECTION).append('\n')
+                        .append("section-").append(i / PER_SECTION).append(":\n");
+            }
+            out.append("  ").append(prefix).append('-').append(i).append(": '<gray>Value number ").append(i)
+                    .append(" for <yellow><player></yellow></gray>'\n");
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,225 @@
+package org.reprogle.bytelib.db.spatial;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reprogle.bytelib.db.api.BlockPos;
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.sqlite.BenchDatabases;
+import org.reprogle.bytelib.db.sqlite.SqliteConfig;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares block lookups on the naive layout (a world name plus x, y, and z columns, indexed together) with the packed
+ * layout: a {@link WorldDictionary} id, one Morton-ordered {@link BlockPos} key, and an {@link RTreeIndex}.
+ * <p>
+ * Blocks are spread at random over three worlds, 4096 x 4096 blocks wide and y -64 to 319. Building the data takes a
+ * while, so the database is kept in the temp directory under a name that includes the block count and reused by later
+ * runs. Pick the size with {@code -p blocks=<n>}.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SpatialLayoutBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpatialLayoutBenchmark {
+    private static final int HALF_WIDTH = 2048;
+    private static final int MIN_Y = -64;
+    private static final int HEIGHT = 384;
+    private static final int SAMPLES = 4096;
+    private static final int BATCH = 50_000;
+    private static final UUID[] WORLDS = {
+            new UUID(0, 1), new UUID(0, 2), new UUID(0, 3)
+    };
+
+    @org.openjdk.jmh.annotations.Param("10000000")
+    public int blocks;
+
+    private SqliteDatabase db;
+    private RTreeIndex rtree;
+    private int[] worldIds;
+    // Existing blocks to look up, and the world each one is in
+    private final BlockPos[] samples = new BlockPos[SAMPLES];
+    private final int[] sampleWorlds = new int[SAMPLES];
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "bytelib-spatial-" + blocks + ".db");
+        if (!Files.exists(file)) {
+            // Built under another name and moved into place, so an interrupted build is never reused
+            Path partial = file.resolveSibling(file.getFileName() + ".partial");
+            for (String suffix : new String[]{"", "-wal", "-shm"}) Files.deleteIfExists(Path.of(partial + suffix));
+            try (SqliteDatabase target = open(partial)) {
+                build(target);
+            }
+            Files.move(partial, file);
+        }
+
+        db = open(file);
+        rtree = new RTreeIndex(db, "blocks_rtree");
+        worldIds = worldIds(db);
+
+        // The data is generated from a fixed seed, so regenerating the first blocks yields known positions
+        SplittableRandom gen = new SplittableRandom(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            sampleWorlds[i] = gen.nextInt(WORLDS.length);
+            samples[i] = randomPos(gen);
+        }
+    }
+
+    private void build(SqliteDatabase db) {
+        RTreeIndex rtree = new RTreeIndex(db, "blocks_rtree");
+        int[] worldIds = worldIds(db);
+        db.execute("CREATE TABLE naive_blocks (id INTEGER PRIMARY KEY, world TEXT NOT NULL, x INTEGER NOT NULL,"
+                + " y INTEGER NOT NULL, z INTEGER NOT NULL)");
+        db.execute("CREATE TABLE packed_blocks (id INTEGER PRIMARY KEY, world_id INTEGER NOT NULL, pos INTEGER NOT NULL)");
+        rtree.create();
+
+        SplittableRandom gen = new SplittableRandom(7);
+        for (int start = 0; start < blocks; start += BATCH) {
+            int from = start;
+            db.transaction(tx -> {
+                for (int id = from; id < Math.min(blocks, from + BATCH); id++) {
+                    int w = gen.nextInt(WORLDS.length);
+                    BlockPos pos = randomPos(gen);
+                    tx.execute("INSERT INTO naive_blocks (id, world, x, y, z) VALUES (?, ?, ?, ?, ?)", Param.i64((long) id),
+                            Param.text(WORLDS[w].toString()), Param.i32(pos.x()), Param.i32(pos.y()), Param.i32(pos.z()));
+                    tx.execute("INSERT INTO packed_blocks (id, world_id, pos) VALUES (?, ?, ?)", Param.i64((long) id),
+                            Param.i32(worldIds[w]), Param.blockPosMorton(pos));
+                    rtree.put(tx, id, worldIds[w], pos, pos);
+                }
+                return null;
+            });
+        }
+
+        // Indexes are built after the load, as a migration importing existing data would
+        db.execute("CREATE INDEX naive_blocks_pos ON naive_blocks (world, x, z, y)");
+        db.execute("CREATE INDEX packed_blocks_pos ON packed_blocks (world_id, pos)");
+        db.execute("ANALYZE");
+        db.checkpoint(SqliteConfig.CheckpointMode.TRUNCATE);
+    }
+
+    private static SqliteDatabase open(Path file) {
+        return BenchDatabases.open(file, BenchDatabases.uncached().withPageCache(SqliteConfig.PageCacheConfig.BALANCED));
+    }
+
+    private static int[] worldIds(SqliteDatabase db) {
+        WorldDictionary dictionary = new WorldDictionary(db);
+        int[] ids = new int[WORLDS.length];
+        for (int i = 0; i < WORLDS.length; i++) ids[i] = dictionary.idFor(WORLDS[i]);
+        return ids;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    // ----------------------
+    // Exact block
+    // ----------------------
+
+    @Benchmark
+    public List<Long> pointNaive() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos p = samples[i];
+        return db.query("SELECT id FROM naive_blocks WHERE world = ? AND x = ? AND y = ? AND z = ?", row -> row.i64("id"),
+                Param.text(WORLDS[sampleWorlds[i]].toString()), Param.i32(p.x()), Param.i32(p.y()), Param.i32(p.z()));
+    }
+
+    @Benchmark
+    public List<Long> pointPacked() {
+        int i = random.nextInt(SAMPLES);
+        return db.query("SELECT id FROM packed_blocks WHERE world_id = ? AND pos = ?", row -> row.i64("id"),
+                Param.i32(worldIds[sampleWorlds[i]]), Param.blockPosMorton(samples[i]));
+    }
+
+    // ----------------------
+    // 32 x 32 x 32 box
+    // ----------------------
+
+    @Benchmark
+    public List<Long> boxNaive() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos c = samples[i];
+        return db.query("SELECT id FROM naive_blocks WHERE world = ? AND x BETWEEN ? AND ? AND z BETWEEN ? AND ?"
+                        + " AND y BETWEEN ? AND ?", row -> row.i64("id"),
+                Param.text(WORLDS[sampleWorlds[i]].toString()), Param.i32(c.x() - 16), Param.i32(c.x() + 15),
+                Param.i32(c.z() - 16), Param.i32(c.z() + 15), Param.i32(c.y() - 16), Param.i32(c.y() + 15));
+    }
+
+    @Benchmark
+    public List<Long> boxRTree() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos c = samples[i];
+        return rtree.idsInBox(worldIds[sampleWorlds[i]], new BlockPos(c.x() - 16, c.y() - 16, c.z() - 16),
+                new BlockPos(c.x() + 15, c.y() + 15, c.z() + 15));
+    }
+
+    // ----------------------
+    // Radius 16
+    // ----------------------
+
+    @Benchmark
+    public List<Long> radiusNaive() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos c = samples[i];
+        return db.query("SELECT id FROM naive_blocks WHERE world = ? AND x BETWEEN ? AND ? AND z BETWEEN ? AND ?"
+                        + " AND y BETWEEN ? AND ? AND (x - ?) * (x - ?) + (y - ?) * (y - ?) + (z - ?) * (z - ?) <= 256",
+                row -> row.i64("id"),
+                Param.text(WORLDS[sampleWorlds[i]].toString()), Param.i32(c.x() - 16), Param.i32(c.x() + 16),
+                Param.i32(c.z() - 16), Param.i32(c.z() + 16), Param.i32(c.y() - 16), Param.i32(c.y() + 16),
+                Param.i32(c.x()), Param.i32(c.x()), Param.i32(c.y()), Param.i32(c.y()), Param.i32(c.z()), Param.i32(c.z()));
+    }
+
+    @Benchmark
+    public List<Long> radiusRTree() {
+        int i = random.nextInt(SAMPLES);
+        return rtree.idsInRadius(worldIds[sampleWorlds[i]], samples[i], 16);
+    }
+
+    // ----------------------
+    // Whole chunk column
+    // ----------------------
+
+    @Benchmark
+    public List<Long> chunkNaive() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos c = samples[i];
+        int x = c.chunkX() << 4;
+        int z = c.chunkZ() << 4;
+        return db.query("SELECT id FROM naive_blocks WHERE world = ? AND x BETWEEN ? AND ? AND z BETWEEN ? AND ?",
+                row -> row.i64("id"),
+                Param.text(WORLDS[sampleWorlds[i]].toString()), Param.i32(x), Param.i32(x + 15), Param.i32(z), Param.i32(z + 15));
+    }
+
+    @Benchmark
+    public List<Long> chunkMorton() {
+        int i = random.nextInt(SAMPLES);
+        BlockPos c = samples[i];
+        long[] range = BlockPos.mortonChunkRange(c.chunkX(), c.chunkZ());
+        return db.query("SELECT id FROM packed_blocks WHERE world_id = ? AND pos BETWEEN ? AND ?", row -> row.i64("id"),
+                Param.i32(worldIds[sampleWorlds[i]]), Param.i64(range[0]), Param.i64(range[1]));
+    }
+
+    private static BlockPos randomPos(SplittableRandom gen) {
+        return new BlockPos(gen.nextInt(-HALF_WIDTH, HALF_WIDTH), MIN_Y + gen.nextInt(HEIGHT), gen.nextInt(-HALF_WIDTH, HALF_WIDTH));
+    }
+}
@@ -0,0 +1,50 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Opens {@link SqliteDatabase}s for benchmarks, which run without a server. Every call counts as coming from a
+ * worker thread, so main-thread policies, timeouts, and tick budgets never apply.
+ */
+public final class BenchDatabases {
+    private static final ServerThread HEADLESS = new ServerThread() {
+        @Override
+        public boolean isPrimaryThread() {
+            return false;
+        }
+
+        @Override
+        public long currentTick() {
+            return 0;
+        }
+    };
+
+    private BenchDatabases() {
+    }
+
+    public static SqliteDatabase open(Path dbFile, SqliteConfig config) {
+        return new SqliteDatabase(Logger.getLogger("ByteLib-Bench"), dbFile, config, HEADLESS);
+    }
+
+    /**
+     * The defaults with the query cache switched off, so every call reaches SQLite.
+     */
+    public static SqliteConfig uncached() {
+        return SqliteConfig.defaults().withCache(new SqliteConfig.CacheConfig(Duration.ZERO, Duration.ZERO, false, 0));
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
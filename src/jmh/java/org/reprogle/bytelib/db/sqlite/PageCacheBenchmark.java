@@ -0,0 +1,109 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reprogle.bytelib.db.api.Param;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link SqliteConfig.PageCacheConfig} profiles on a table of about 70 MB, several times larger than the
+ * biggest page cache any profile configures. The query cache is off, so every call reads through SQLite.
+ * <ul>
+ *     <li>{@code pointRead}: one row by primary key, anywhere in the table</li>
+ *     <li>{@code hotSetRead}: one row from the first 10% of the table (about 7 MB), which fits the larger caches</li>
+ *     <li>{@code rangeScan}: 2,000 consecutive rows (about 560 KB)</li>
+ * </ul>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=PageCacheBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class PageCacheBenchmark {
+    private static final int ROWS = 250_000;
+    private static final int PAYLOAD_BYTES = 256;
+    private static final int HOT_ROWS = ROWS / 10;
+    private static final int RANGE = 2_000;
+
+    @org.openjdk.jmh.annotations.Param({"SQLITE_DEFAULTS", "LOW_MEMORY", "BALANCED", "READ_HEAVY_MMAP"})
+    public String profile;
+
+    private Path dir;
+    private SqliteDatabase db;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("bytelib-pagecache-");
+        db = BenchDatabases.open(dir.resolve("bench.db"), BenchDatabases.uncached().withPageCache(profile(profile)));
+        db.execute("CREATE TABLE blobs (id INTEGER PRIMARY KEY, payload BLOB NOT NULL)");
+
+        SplittableRandom fill = new SplittableRandom(7);
+        for (int start = 0; start < ROWS; start += 10_000) {
+            int from = start;
+            db.transaction(tx -> {
+                byte[] payload = new byte[PAYLOAD_BYTES];
+                for (int id = from; id < Math.min(ROWS, from + 10_000); id++) {
+                    fill.nextBytes(payload);
+                    tx.execute("INSERT INTO blobs (id, payload) VALUES (?, ?)", Param.i32(id), Param.blob(payload));
+                }
+                return null;
+            });
+        }
+        // Start every profile from a checkpointed file rather than a large WAL
+        db.checkpoint(SqliteConfig.CheckpointMode.TRUNCATE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+        BenchDatabases.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<byte[]> pointRead() {
+        return read(random.nextInt(ROWS));
+    }
+
+    @Benchmark
+    public List<byte[]> hotSetRead() {
+        return read(random.nextInt(HOT_ROWS));
+    }
+
+    @Benchmark
+    public List<Long> rangeScan() {
+        int from = random.nextInt(ROWS - RANGE);
+        return db.query("SELECT sum(length(payload)) AS bytes FROM blobs WHERE id BETWEEN ? AND ?",
+                row -> row.i64("bytes"), Param.i32(from), Param.i32(from + RANGE - 1));
+    }
+
+    private List<byte[]> read(int id) {
+        return db.query("SELECT payload FROM blobs WHERE id = ?", row -> row.blob("payload"), Param.i32(id));
+    }
+
+    private static SqliteConfig.PageCacheConfig profile(String name) {
+        return switch (name) {
+            case "SQLITE_DEFAULTS" -> SqliteConfig.PageCacheConfig.SQLITE_DEFAULTS;
+            case "LOW_MEMORY" -> SqliteConfig.PageCacheConfig.LOW_MEMORY;
+            case "BALANCED" -> SqliteConfig.PageCacheConfig.BALANCED;
+            case "READ_HEAVY_MMAP" -> SqliteConfig.PageCacheConfig.READ_HEAVY_MMAP;
+            default -> throw new IllegalArgumentException("Unknown page cache profile: " + name);
+        };
+    }
+}
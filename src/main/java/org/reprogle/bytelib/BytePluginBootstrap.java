@@ -3,6 +3,7 @@ package org.reprogle.bytelib;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.Stage;
 import io.papermc.paper.plugin.bootstrap.BootstrapContext;
 import io.papermc.paper.plugin.bootstrap.PluginBootstrap;
 import io.papermc.paper.plugin.bootstrap.PluginProviderContext;
@@ -13,7 +14,9 @@ import org.jspecify.annotations.NonNull;
 import org.reprogle.bytelib.commands.CommandsModule;
 import org.reprogle.bytelib.boot.inject.CoreModule;
 import org.reprogle.bytelib.boot.inject.PluginInstanceModule;
+import org.reprogle.bytelib.boot.inject.SingletonPrewarmer;
 import org.reprogle.bytelib.boot.lifecycle.LifecycleModule;
+import org.reprogle.bytelib.boot.profile.BootProfiler;
 import org.reprogle.bytelib.boot.wiring.PluginWiring;
 import org.reprogle.bytelib.boot.wiring.WiringResolver;
 import org.reprogle.bytelib.config.ConfigModule;
@@ -38,14 +41,16 @@ public final class BytePluginBootstrap implements PluginBootstrap {
 
         String mainClassName = meta.getMainClass();
         ClassLoader cl = this.getClass().getClassLoader();
+        BootProfiler profiler = new BootProfiler(meta.getName());
 
-        PluginWiring wiring = WiringResolver.resolve(cl, mainClassName)
+        PluginWiring wiring = profiler.time("wiring.resolve", () -> WiringResolver.resolve(cl, mainClassName))
                 .orElseThrow(() -> new IllegalStateException("No PluginWiring found for " + mainClassName));
 
-        Injector bootstrapInjector = Guice.createInjector(new CoreModule(meta, dataDir, logger));
+        Injector bootstrapInjector = profiler.time("injector.bootstrap",
+                () -> Guice.createInjector(wiring.stage(), new CoreModule(meta, dataDir, logger, profiler)));
 
-        Class<? extends JavaPlugin> pluginClass = loadPluginMain(cl, mainClassName);
-        JavaPlugin rawPlugin = constructPlugin(pluginClass, bootstrapInjector, meta, dataDir, logger);
+        JavaPlugin rawPlugin = profiler.time("plugin.construct",
+                () -> constructPlugin(loadPluginMain(cl, mainClassName), bootstrapInjector, meta, dataDir, logger));
 
         if (!(rawPlugin instanceof ByteLibPlugin plugin)) {
             throw new IllegalStateException("Main class must extend ByteLibPlugin: " + mainClassName);
@@ -56,12 +61,16 @@ public final class BytePluginBootstrap implements PluginBootstrap {
         childModules.add(new ConfigModule());
         childModules.add(new LifecycleModule());
         childModules.add(new CommandsModule());
-        childModules.addAll(wiring.modules(meta, dataDir, logger));
+        childModules.addAll(profiler.time("wiring.modules", () -> wiring.modules(meta, dataDir, logger)));
 
-        Injector pluginInjector = bootstrapInjector.createChildInjector(childModules);
+        Injector pluginInjector = profiler.time("injector.plugin", () -> bootstrapInjector.createChildInjector(childModules));
 
         plugin.attachInjector(pluginInjector);
-        pluginInjector.injectMembers(plugin);
+        profiler.time("plugin.inject", () -> pluginInjector.injectMembers(plugin));
+
+        if (wiring.stage() != Stage.PRODUCTION) {
+            SingletonPrewarmer.start(pluginInjector, wiring.prewarm(), meta.getName(), logger);
+        }
 
         return plugin;
     }
@@ -3,8 +3,10 @@ package org.reprogle.bytelib.boot.inject;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.matcher.Matchers;
 import io.papermc.paper.plugin.configuration.PluginMeta;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.reprogle.bytelib.boot.profile.BootProfiler;
 
 import java.nio.file.Path;
 
@@ -13,11 +15,23 @@ public final class CoreModule extends AbstractModule {
     private final PluginMeta meta;
     private final Path dataDir;
     private final ComponentLogger logger;
+    private final BootProfiler profiler;
 
     public CoreModule(PluginMeta meta, Path dataDir, ComponentLogger logger) {
+        this(meta, dataDir, logger, new BootProfiler(meta.getName()));
+    }
+
+    public CoreModule(PluginMeta meta, Path dataDir, ComponentLogger logger, BootProfiler profiler) {
         this.meta = meta;
         this.dataDir = dataDir;
         this.logger = logger;
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void configure() {
+        // Child injectors inherit the listener, so plugin bindings are timed as well
+        bindListener(Matchers.any(), profiler.provisionListener());
     }
 
     @Provides
@@ -37,4 +51,10 @@ public final class CoreModule extends AbstractModule {
     public ComponentLogger logger() {
         return logger;
     }
+
+    @Provides
+    @Singleton
+    public BootProfiler bootProfiler() {
+        return profiler;
+    }
 }
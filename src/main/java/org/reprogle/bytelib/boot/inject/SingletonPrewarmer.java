@@ -0,0 +1,63 @@
+package org.reprogle.bytelib.boot.inject;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds singletons on a few short-lived worker threads ahead of their first use. Guice serializes construction of
+ * each singleton, so a thread asking for one that is still being built waits for it rather than building a second.
+ */
+public final class SingletonPrewarmer {
+    private static final int MAX_THREADS = 4;
+
+    private SingletonPrewarmer() {
+    }
+
+    /**
+     * Starts building every bound key in {@code keys} and returns without waiting. A key that fails is logged and
+     * left to fail again, with the real error, wherever it is first used.
+     *
+     * @return Completes once every key has been attempted
+     */
+    public static CompletableFuture<Void> start(Injector injector, Set<Key<?>> keys, String name, ComponentLogger logger) {
+        List<Key<?>> bound = new ArrayList<>();
+        for (Key<?> key : keys) {
+            if (injector.getExistingBinding(key) != null) bound.add(key);
+        }
+        if (bound.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(MAX_THREADS, bound.size()), r -> {
+            Thread t = new Thread(r, "bytelib-prewarm-" + name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[bound.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            Key<?> key = bound.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    injector.getInstance(key);
+                } catch (RuntimeException e) {
+                    logger.warn("Pre-warming {} for {} failed", key, name, e);
+                }
+            }, pool);
+        }
+        pool.shutdown();
+
+        return CompletableFuture.allOf(tasks).thenRun(() -> logger.info("Pre-warmed {} singleton(s) for {} in {}ms",
+                tasks.length, name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+}
@@ -2,30 +2,42 @@ package org.reprogle.bytelib.boot.lifecycle;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import org.reprogle.bytelib.boot.profile.BootProfiler;
 
 import java.util.Set;
+import java.util.function.Consumer;
 
+/**
+ * Fans each phase out to every bound {@link PluginLifecycle} in dependency order. Load and enable run independent
+ * {@link PluginLifecycle#asyncSafe() async-safe} lifecycles in parallel; disable runs in reverse on the main thread.
+ */
 @Singleton
 public final class CompositeLifecycle implements PluginLifecycle {
-    private final Set<PluginLifecycle> lifecycles;
+    private final LifecycleGraph graph;
+    private final BootProfiler profiler;
 
     @Inject
-    public CompositeLifecycle(Set<PluginLifecycle> lifecycles) {
-        this.lifecycles = lifecycles;
+    public CompositeLifecycle(Set<PluginLifecycle> lifecycles, BootProfiler profiler) {
+        this.graph = new LifecycleGraph(lifecycles);
+        this.profiler = profiler;
     }
 
     @Override
     public void onLoad() {
-        lifecycles.forEach(PluginLifecycle::onLoad);
+        graph.run("load", timed("load", PluginLifecycle::onLoad));
     }
 
     @Override
     public void onEnable() {
-        lifecycles.forEach(PluginLifecycle::onEnable);
+        graph.run("enable", timed("enable", PluginLifecycle::onEnable));
     }
 
     @Override
     public void onDisable() {
-        lifecycles.forEach(PluginLifecycle::onDisable);
+        graph.runReverse("disable", timed("disable", PluginLifecycle::onDisable));
+    }
+
+    private Consumer<PluginLifecycle> timed(String phase, Consumer<PluginLifecycle> action) {
+        return lifecycle -> profiler.lifecycle(phase, lifecycle.getClass(), () -> action.accept(lifecycle));
     }
 }
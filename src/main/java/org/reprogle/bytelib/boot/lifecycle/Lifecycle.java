@@ -0,0 +1,18 @@
+package org.reprogle.bytelib.boot.lifecycle;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Adds the annotated {@link PluginLifecycle} to the generated wiring's lifecycle set, so it needs no hand-written
+ * {@code Multibinder} entry. Requires the plugin's main class to carry
+ * {@link org.reprogle.bytelib.boot.wiring.Wiring @Wiring}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Lifecycle {
+}
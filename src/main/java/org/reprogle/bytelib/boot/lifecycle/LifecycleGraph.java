@@ -0,0 +1,236 @@
+package org.reprogle.bytelib.boot.lifecycle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The lifecycles of one plugin as a dependency graph built from {@link PluginLifecycle#dependsOn()}.
+ * <p>
+ * Start-up phases run each lifecycle once everything it depends on has finished: {@link PluginLifecycle#asyncSafe()}
+ * ones on a small worker pool, the rest on the calling (main) thread, which also waits for the workers. When one
+ * fails, everything depending on it is skipped, unrelated lifecycles still run, and the phase then throws.
+ * {@link #runReverse} runs every lifecycle on the calling thread, dependents first, and keeps going past failures.
+ */
+final class LifecycleGraph {
+    // Start-up work is mostly I/O (database, files), so even a single core gets two workers
+    private static final int MAX_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final List<PluginLifecycle> nodes;
+    // Per node: indices of the nodes it depends on, and of the nodes depending on it
+    private final int[][] deps;
+    private final int[][] dependents;
+    // Every node after all of its dependencies; ties keep binding order
+    private final int[] order;
+
+    LifecycleGraph(Collection<PluginLifecycle> lifecycles) {
+        this.nodes = List.copyOf(lifecycles);
+        int n = nodes.size();
+
+        List<List<Integer>> in = new ArrayList<>(n);
+        List<List<Integer>> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            in.add(new ArrayList<>());
+            out.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (Class<? extends PluginLifecycle> type : nodes.get(i).dependsOn()) {
+                for (int j = 0; j < n; j++) {
+                    if (j == i || !type.isInstance(nodes.get(j)) || in.get(i).contains(j)) continue;
+                    in.get(i).add(j);
+                    out.get(j).add(i);
+                }
+            }
+        }
+        this.deps = toArrays(in);
+        this.dependents = toArrays(out);
+        this.order = sort();
+    }
+
+    /**
+     * Runs {@code action} on every lifecycle in dependency order, in parallel where allowed.
+     *
+     * @throws IllegalStateException If any lifecycle failed, with the first failure as cause and the rest suppressed
+     */
+    void run(String phase, Consumer<PluginLifecycle> action) {
+        int n = nodes.size();
+        int[] waitingOn = new int[n];
+        for (int i = 0; i < n; i++) waitingOn[i] = deps[i].length;
+        boolean[] skipped = new boolean[n];
+
+        ArrayDeque<Integer> mainReady = new ArrayDeque<>();
+        BlockingQueue<Done> finished = new LinkedBlockingQueue<>();
+        List<Throwable> failures = new ArrayList<>();
+        StringJoiner failedNames = new StringJoiner(", ");
+        StringJoiner skippedNames = new StringJoiner(", ");
+
+        ExecutorService pool = null;
+        try {
+            int settled = 0;
+            for (int i : order) {
+                if (waitingOn[i] == 0) pool = schedule(i, phase, action, pool, mainReady, finished);
+            }
+
+            while (settled < n) {
+                Done done;
+                if (!mainReady.isEmpty()) {
+                    int i = mainReady.poll();
+                    done = new Done(i, call(nodes.get(i), action));
+                } else {
+                    try {
+                        done = finished.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while running lifecycle " + phase, e);
+                    }
+                }
+                settled++;
+
+                if (done.error() != null) {
+                    failures.add(done.error());
+                    failedNames.add(name(done.node()));
+                    settled += skip(done.node(), skipped, skippedNames);
+                    continue;
+                }
+                for (int d : dependents[done.node()]) {
+                    if (!skipped[d] && --waitingOn[d] == 0) pool = schedule(d, phase, action, pool, mainReady, finished);
+                }
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+
+        if (!failures.isEmpty()) {
+            IllegalStateException e = new IllegalStateException("Lifecycle " + phase + " failed in " + failedNames
+                    + (skippedNames.length() == 0 ? "" : "; skipped dependents " + skippedNames), failures.getFirst());
+            for (int i = 1; i < failures.size(); i++) e.addSuppressed(failures.get(i));
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@code action} on every lifecycle on the calling thread, each before the ones it depends on. A failure does
+     * not stop the others.
+     *
+     * @throws IllegalStateException If any lifecycle failed, once all have run
+     */
+    void runReverse(String phase, Consumer<PluginLifecycle> action) {
+        IllegalStateException failed = null;
+        for (int k = order.length - 1; k >= 0; k--) {
+            Throwable error = call(nodes.get(order[k]), action);
+            if (error == null) continue;
+            if (failed == null) {
+                failed = new IllegalStateException("Lifecycle " + phase + " failed in " + name(order[k]), error);
+            } else {
+                failed.addSuppressed(error);
+            }
+        }
+        if (failed != null) throw failed;
+    }
+
+    private ExecutorService schedule(int i, String phase, Consumer<PluginLifecycle> action, ExecutorService pool,
+                                     ArrayDeque<Integer> mainReady, BlockingQueue<Done> finished) {
+        PluginLifecycle node = nodes.get(i);
+        if (!node.asyncSafe()) {
+            mainReady.add(i);
+            return pool;
+        }
+        if (pool == null) pool = Executors.newFixedThreadPool(MAX_THREADS, threads(phase));
+        pool.execute(() -> finished.add(new Done(i, call(node, action))));
+        return pool;
+    }
+
+    /**
+     * Marks everything that (transitively) depends on {@code failed} as skipped.
+     *
+     * @return How many nodes were newly skipped
+     */
+    private int skip(int failed, boolean[] skipped, StringJoiner names) {
+        int count = 0;
+        ArrayDeque<Integer> todo = new ArrayDeque<>();
+        todo.add(failed);
+        while (!todo.isEmpty()) {
+            for (int d : dependents[todo.poll()]) {
+                if (skipped[d]) continue;
+                skipped[d] = true;
+                names.add(name(d));
+                count++;
+                todo.add(d);
+            }
+        }
+        return count;
+    }
+
+    private int[] sort() {
+        int n = nodes.size();
+        int[] waitingOn = new int[n];
+        for (int i = 0; i < n; i++) waitingOn[i] = deps[i].length;
+
+        int[] sorted = new int[n];
+        int count = 0;
+        boolean[] placed = new boolean[n];
+        // Repeated passes in binding order, so independent lifecycles keep the order they were bound in
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int i = 0; i < n; i++) {
+                if (placed[i] || waitingOn[i] != 0) continue;
+                placed[i] = true;
+                sorted[count++] = i;
+                for (int d : dependents[i]) waitingOn[d]--;
+                progress = true;
+            }
+        }
+
+        if (count < n) {
+            StringJoiner cycle = new StringJoiner(", ");
+            for (int i = 0; i < n; i++) {
+                if (!placed[i]) cycle.add(name(i));
+            }
+            throw new IllegalStateException("Lifecycle dependency cycle among: " + cycle);
+        }
+        return sorted;
+    }
+
+    private static Throwable call(PluginLifecycle lifecycle, Consumer<PluginLifecycle> action) {
+        try {
+            action.accept(lifecycle);
+            return null;
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    private String name(int i) {
+        return nodes.get(i).getClass().getName();
+    }
+
+    private static ThreadFactory threads(String phase) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "bytelib-lifecycle-" + phase + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] out = new int[lists.size()][];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return out;
+    }
+
+    private record Done(int node, Throwable error) {
+    }
+}
@@ -1,7 +1,27 @@
 package org.reprogle.bytelib.boot.lifecycle;
 
+import java.util.Set;
+
 public interface PluginLifecycle {
     default void onLoad() {}
     default void onEnable() {}
     default void onDisable() {}
+
+    /**
+     * Lifecycles whose {@code onLoad}/{@code onEnable} must finish before this one's start, and whose
+     * {@code onDisable} runs after this one's. A class matches every bound lifecycle that is an instance of it;
+     * classes nothing bound matches are ignored, so optional modules can be depended on.
+     */
+    default Set<Class<? extends PluginLifecycle>> dependsOn() {
+        return Set.of();
+    }
+
+    /**
+     * Whether {@code onLoad} and {@code onEnable} may run on a worker thread, in parallel with unrelated lifecycles.
+     * Only return true if they touch no Bukkit state that requires the main thread and never wait for the main
+     * thread, which is busy waiting for them. {@code onDisable} always runs on the main thread.
+     */
+    default boolean asyncSafe() {
+        return false;
+    }
 }
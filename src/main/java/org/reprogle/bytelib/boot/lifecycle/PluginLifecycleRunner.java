@@ -2,25 +2,73 @@ package org.reprogle.bytelib.boot.lifecycle;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.reprogle.bytelib.boot.profile.BootProfiler;
+import org.reprogle.bytelib.boot.profile.StartupReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 public final class PluginLifecycleRunner {
+    // How many of the slowest bindings and lifecycles the start-up report lists
+    private static final int REPORT_TOP = 8;
+
     private final CompositeLifecycle lifecycle;
+    private final BootProfiler profiler;
+    private final ComponentLogger logger;
+    private final Path dataDir;
 
     @Inject
-    public PluginLifecycleRunner(CompositeLifecycle lifecycle) {
+    public PluginLifecycleRunner(CompositeLifecycle lifecycle, BootProfiler profiler, ComponentLogger logger, Path dataDir) {
         this.lifecycle = lifecycle;
+        this.profiler = profiler;
+        this.logger = logger;
+        this.dataDir = dataDir;
     }
 
     public void load() {
-        lifecycle.onLoad();
+        profiler.time("lifecycle.load", lifecycle::onLoad);
     }
 
+    /**
+     * Enables every lifecycle, then logs a one-line summary of the start-up report (the full breakdown at debug level)
+     * and writes it as JSON to {@code <data>/.bytelib/startup-report.json}. The report is written even if enabling
+     * failed.
+     */
     public void enable() {
-        lifecycle.onEnable();
+        try {
+            profiler.time("lifecycle.enable", lifecycle::onEnable);
+        } finally {
+            StartupReport report = profiler.finish();
+            List<String> lines = report.lines(REPORT_TOP);
+            logger.info(lines.getFirst());
+            if (logger.isDebugEnabled()) lines.subList(1, lines.size()).forEach(logger::debug);
+            try {
+                report.writeJson(dataDir.resolve(".bytelib").resolve("startup-report.json"));
+            } catch (IOException e) {
+                logger.warn("Could not write the start-up report: {}", e.toString());
+            }
+        }
     }
 
     public void disable() {
-        lifecycle.onDisable();
+        long start = System.nanoTime();
+        try {
+            lifecycle.onDisable();
+        } finally {
+            List<StartupReport.LifecycleTiming> timings = profiler.shutdownTimings();
+            StringJoiner slowest = new StringJoiner(", ");
+            timings.stream()
+                    .sorted(Comparator.comparingLong(StartupReport.LifecycleTiming::nanos).reversed())
+                    .limit(3)
+                    .forEach(t -> slowest.add(t.lifecycle() + " " + TimeUnit.NANOSECONDS.toMillis(t.nanos()) + "ms"));
+            logger.info("Disabled {} lifecycle(s) in {}ms (slowest: {})", timings.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), slowest);
+        }
     }
 }
@@ -0,0 +1,151 @@
+package org.reprogle.bytelib.boot.profile;
+
+import com.google.inject.Key;
+import com.google.inject.spi.ProvisionListener;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each part of a plugin's start-up and shutdown takes: the bootstrap stages, every Guice provision
+ * (through a {@link ProvisionListener} installed by {@code CoreModule}), and every lifecycle call. One instance lives
+ * per plugin, from {@code createPlugin} until the plugin is disabled, and is bound in the injector.
+ * <p>
+ * Provisions are only timed until {@link #finish()}, so the listener costs next to nothing afterwards.
+ */
+public final class BootProfiler {
+    private final String plugin;
+    private final long createdAt = System.nanoTime();
+
+    private final List<StartupReport.Stage> stages = new CopyOnWriteArrayList<>();
+    private final List<StartupReport.LifecycleTiming> lifecycles = new CopyOnWriteArrayList<>();
+    private final Map<Key<?>, BindingStats> bindings = new ConcurrentHashMap<>();
+    // Per thread, the provisions in progress, each summing the time spent in its nested provisions
+    private final ThreadLocal<ArrayDeque<long[]>> provisioning = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ProvisionListener listener = new ProvisionTimer();
+
+    private volatile boolean recording = true;
+    private volatile StartupReport report;
+
+    public BootProfiler(String plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Runs {@code work} as the named stage.
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            stages.add(new StartupReport.Stage(stage, start - createdAt, System.nanoTime() - start));
+        }
+    }
+
+    public void time(String stage, Runnable work) {
+        time(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs one lifecycle's {@code phase} callback, recording its duration and thread.
+     */
+    public void lifecycle(String phase, Class<?> lifecycle, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            lifecycles.add(new StartupReport.LifecycleTiming(phase, lifecycle.getName(), Thread.currentThread().getName(),
+                    System.nanoTime() - start));
+        }
+    }
+
+    public ProvisionListener provisionListener() {
+        return listener;
+    }
+
+    /**
+     * Stops timing provisions and builds the start-up report from everything recorded so far. Later calls return the
+     * same report.
+     */
+    public synchronized StartupReport finish() {
+        if (report != null) return report;
+        recording = false;
+
+        long total = 0;
+        for (StartupReport.Stage stage : stages) total += stage.nanos();
+
+        List<StartupReport.Binding> byKey = bindings.entrySet().stream()
+                .map(e -> new StartupReport.Binding(describe(e.getKey()), (int) e.getValue().count.get(), e.getValue().selfNanos.get()))
+                .sorted(Comparator.comparingLong(StartupReport.Binding::selfNanos).reversed())
+                .toList();
+        List<StartupReport.LifecycleTiming> startup = lifecycles.stream()
+                .filter(l -> !l.phase().equals("disable"))
+                .toList();
+
+        report = new StartupReport(plugin, total, System.nanoTime() - createdAt, stages, byKey, startup);
+        bindings.clear();
+        return report;
+    }
+
+    /**
+     * The start-up report, or null until the plugin has finished enabling.
+     */
+    public @Nullable StartupReport report() {
+        return report;
+    }
+
+    /**
+     * Timings of the disable phase recorded so far, in the order the lifecycles finished.
+     */
+    public List<StartupReport.LifecycleTiming> shutdownTimings() {
+        return lifecycles.stream().filter(l -> l.phase().equals("disable")).toList();
+    }
+
+    private static String describe(Key<?> key) {
+        String type = key.getTypeLiteral().toString();
+        // The annotation instance carries its values, so @Named("a") and @Named("b") stay apart
+        if (key.getAnnotation() != null) return type + " " + key.getAnnotation();
+        if (key.getAnnotationType() != null) return type + " @" + key.getAnnotationType().getSimpleName();
+        return type;
+    }
+
+    private static final class BindingStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong selfNanos = new AtomicLong();
+    }
+
+    private final class ProvisionTimer implements ProvisionListener {
+        @Override
+        public <T> void onProvision(ProvisionInvocation<T> provision) {
+            if (!recording) return;
+
+            ArrayDeque<long[]> stack = provisioning.get();
+            long[] nested = new long[1];
+            stack.push(nested);
+            long start = System.nanoTime();
+            try {
+                provision.provision();
+            } finally {
+                long took = System.nanoTime() - start;
+                stack.pop();
+                long[] parent = stack.peek();
+                if (parent != null) parent[0] += took;
+
+                BindingStats stats = bindings.computeIfAbsent(provision.getBinding().getKey(), k -> new BindingStats());
+                stats.count.incrementAndGet();
+                stats.selfNanos.addAndGet(took - nested[0]);
+            }
+        }
+    }
+}
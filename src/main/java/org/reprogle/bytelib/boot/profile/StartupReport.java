@@ -0,0 +1,108 @@
+package org.reprogle.bytelib.boot.profile;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Where one plugin's start-up time went, as recorded by {@link BootProfiler}. All durations are in nanoseconds,
+ * measured with {@link System#nanoTime()}.
+ *
+ * @param plugin     The plugin's name
+ * @param totalNanos Time spent in ByteLib's start-up stages, excluding time the server spent elsewhere in between
+ * @param wallNanos  Time from {@code createPlugin} until the plugin finished enabling
+ * @param stages     Start-up stages in the order they ran
+ * @param bindings   Guice provisions by key, slowest first; self time excludes the dependencies provisioned for it
+ * @param lifecycles Every lifecycle call of the load and enable phases, in the order they finished
+ */
+public record StartupReport(
+        String plugin,
+        long totalNanos,
+        long wallNanos,
+        List<Stage> stages,
+        List<Binding> bindings,
+        List<LifecycleTiming> lifecycles
+) {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    public StartupReport {
+        stages = List.copyOf(stages);
+        bindings = List.copyOf(bindings);
+        lifecycles = List.copyOf(lifecycles);
+    }
+
+    /**
+     * @param startNanos Offset from {@code createPlugin}
+     */
+    public record Stage(String name, long startNanos, long nanos) {
+    }
+
+    public record Binding(String key, int count, long selfNanos) {
+    }
+
+    public record LifecycleTiming(String phase, String lifecycle, String thread, long nanos) {
+    }
+
+    public String toJson() {
+        return GSON.toJson(this);
+    }
+
+    /**
+     * Writes {@link #toJson()} to {@code file} via a temp file and atomic move, so collectors never read half a report.
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, toJson());
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * A short human-readable summary: every stage, then the {@code top} slowest bindings and lifecycles.
+     */
+    public List<String> lines(int top) {
+        List<String> out = new ArrayList<>();
+        out.add(String.format(Locale.ROOT, "Started %s in %s (%s wall since bootstrap)", plugin, ms(totalNanos), ms(wallNanos)));
+
+        for (Stage stage : stages) {
+            out.add(String.format(Locale.ROOT, "  %-22s %9s", stage.name(), ms(stage.nanos())));
+        }
+
+        if (!bindings.isEmpty()) {
+            out.add("  Slowest bindings (self time):");
+            for (Binding b : bindings.subList(0, Math.min(top, bindings.size()))) {
+                out.add(String.format(Locale.ROOT, "    %9s  %s%s", ms(b.selfNanos()), b.key(), b.count() > 1 ? " x" + b.count() : ""));
+            }
+        }
+
+        if (!lifecycles.isEmpty()) {
+            out.add("  Slowest lifecycles:");
+            lifecycles.stream()
+                    .sorted(Comparator.comparingLong(LifecycleTiming::nanos).reversed())
+                    .limit(top)
+                    .forEach(l -> out.add(String.format(Locale.ROOT, "    %9s  %s %s [%s]", ms(l.nanos()), l.phase(), l.lifecycle(), l.thread())));
+        }
+        return out;
+    }
+
+    static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+}
@@ -1,12 +1,36 @@
 package org.reprogle.bytelib.boot.wiring;
 
+import com.google.inject.Key;
 import com.google.inject.Module;
+import com.google.inject.Stage;
 import io.papermc.paper.plugin.configuration.PluginMeta;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 
 public interface PluginWiring {
     List<Module> modules(PluginMeta meta, Path dataDir, ComponentLogger logger);
+
+    /**
+     * The stage both injectors are created in. {@link Stage#PRODUCTION} builds every singleton while the plugin is
+     * created, serially on the thread creating it; {@link Stage#DEVELOPMENT} builds them on first use.
+     */
+    default Stage stage() {
+        return Stage.DEVELOPMENT;
+    }
+
+    /**
+     * Singletons to build on worker threads, in parallel, right after the injector is created, so their I/O (reading
+     * YAML, opening databases) overlaps with the server loading other plugins instead of landing on the main thread in
+     * {@code onEnable}. Anything that asks for one of them before it is ready simply waits for it. Keys that are not
+     * bound are skipped. Ex: {@code Set.of(Key.get(BytePluginConfig.class), Key.get(SqliteDatabase.class))}.
+     * <p>
+     * Only list singletons whose construction is safe off the main thread. Has no effect in {@link Stage#PRODUCTION},
+     * where they are already built.
+     */
+    default Set<Key<?>> prewarm() {
+        return Set.of();
+    }
 }
@@ -0,0 +1,38 @@
+package org.reprogle.bytelib.boot.wiring;
+
+import com.google.inject.Module;
+import com.google.inject.Stage;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put on the plugin's main class to have {@code ByteLibProcessor} generate its {@link PluginWiring} at build time:
+ * a {@code <MainClass>Wiring} installing {@link #modules()} plus every
+ * {@link org.reprogle.bytelib.commands.Command @Command} and
+ * {@link org.reprogle.bytelib.boot.lifecycle.Lifecycle @Lifecycle} class. {@link WiringResolver} finds it by its
+ * first naming convention, {@code <MainClass>Wiring}. Replaces a hand-written wiring class.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Wiring {
+    /**
+     * Modules to install. Each needs a public constructor taking either nothing or
+     * {@code (PluginMeta, Path, ComponentLogger)}.
+     */
+    Class<? extends Module>[] modules() default {};
+
+    /**
+     * See {@link PluginWiring#stage()}.
+     */
+    Stage stage() default Stage.DEVELOPMENT;
+
+    /**
+     * Types whose (unannotated) bindings to pre-warm; see {@link PluginWiring#prewarm()}.
+     */
+    Class<?>[] prewarm() default {};
+}
@@ -8,7 +8,7 @@ public final class WiringResolver {
     }
 
     public static Optional<PluginWiring> resolve(ClassLoader classLoader, String mainClassName) {
-        // Convention 1: <MainClassName>Wiring
+        // Convention 1: <MainClassName>Wiring (also what ByteLibProcessor generates for @Wiring)
         Optional<PluginWiring> wiring = tryInstantiate(classLoader, mainClassName + "Wiring");
         if (wiring.isPresent()) return wiring;
 
@@ -10,40 +10,91 @@ import dev.dejvokep.boostedyaml.settings.loader.LoaderSettings;
 import dev.dejvokep.boostedyaml.settings.updater.UpdaterSettings;
 import io.papermc.paper.plugin.configuration.PluginMeta;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 @Singleton
 public class BoostedYamlPluginConfig implements BytePluginConfig {
 
-    private final JavaPlugin plugin;
-    private final PluginMeta meta;
+    // Null when running without a server
+    private final @Nullable JavaPlugin plugin;
+    private final String pluginName;
+    // Bundled defaults by resource path, normally read from the plugin jar
+    private final Function<String, InputStream> resources;
     private final Path dataDir;
     private final ComponentLogger logger;
 
-    // Loaded documents by name (ex: "config", "lang", "menus", "items", ...)
-    private final Map<String, YamlDocument> docs = new ConcurrentHashMap<>();
+    // Independent documents are loaded on at most this many threads during a full reload
+    private static final int MAX_LOAD_THREADS = 4;
+    // Lang file names loadLang accepts (ex: "de", "de_DE", "zh_Hant"), which also keeps the tag from leaving lang/
+    private static final Pattern LOCALE_TAG = Pattern.compile("[A-Za-z]{2,8}(_[A-Za-z0-9]{2,8})?");
+
+    // Loaded documents by name (ex: "config", "lang", "menus", "items", ...). An immutable snapshot, replaced as a
+    // whole so readers never see a half-finished reload
+    private volatile Map<String, YamlDocument> docs = Map.of();
 
     // Registered specs by name
     private final Map<String, YamlSpec> specs = new ConcurrentHashMap<>();
 
     private volatile String locale = "en_US";
 
+    // Reloads are serialized with each other; readers never wait on them
+    private final Object reloadLock = new Object();
+    private final List<ConfigReloadListener> reloadListeners = new CopyOnWriteArrayList<>();
+    private final List<ConfigBinding<?>> bindings = new CopyOnWriteArrayList<>();
+    // What each document's file looked like when it was last loaded or written, so the watcher can ignore our own writes
+    private final Map<Path, FileStamp> stamps = new ConcurrentHashMap<>();
+    private YamlFileWatcher watcher;
+    // Null unless enabled with -Dbytelib.config.cache=true
+    private final YamlSnapshotIndex snapshots;
+
     @Inject
     public BoostedYamlPluginConfig(JavaPlugin plugin, PluginMeta meta, Path dataDirectory, ComponentLogger logger) {
+        this(plugin, meta.getName(), plugin::getResource, dataDirectory, logger);
+    }
+
+    /**
+     * Creates a config that reads its bundled defaults through {@code resources} instead of a plugin jar, so it can
+     * run without a server. Without a plugin, changes picked up by the file watcher notify no reload listeners.
+     */
+    BoostedYamlPluginConfig(@Nullable JavaPlugin plugin, String pluginName, Function<String, InputStream> resources,
+                            Path dataDirectory, ComponentLogger logger) {
         this.plugin = plugin;
-        this.meta = meta;
+        this.pluginName = Objects.requireNonNull(pluginName, "pluginName");
+        this.resources = Objects.requireNonNull(resources, "resources");
         this.dataDir = dataDirectory;
         this.logger = logger;
+        this.snapshots = YamlSnapshotIndex.openIfEnabled(dataDir.resolve(".bytelib").resolve("yaml-snapshots.idx"));
 
         // Default built-ins
         register("config", YamlSpec.of(dataDir.resolve("config.yml"), "config.yml", "file-version"));
@@ -89,7 +140,7 @@ public class BoostedYamlPluginConfig implements BytePluginConfig {
     @Override
     public YamlDocument require(String name) {
         YamlDocument doc = docs.get(name);
-        if (doc == null) throw new IllegalStateException("YAML not loaded: " + name + " (" + meta.getName() + ")");
+        if (doc == null) throw new IllegalStateException("YAML not loaded: " + name + " (" + pluginName + ")");
         return doc;
     }
 
@@ -99,6 +150,9 @@ public class BoostedYamlPluginConfig implements BytePluginConfig {
     @Override
     public void register(String name, YamlSpec spec) {
         specs.put(Objects.requireNonNull(name, "name"), Objects.requireNonNull(spec, "spec"));
+        synchronized (this) {
+            if (watcher != null) watcher.watch(spec.outFile().getParent());
+        }
     }
 
     /**
@@ -109,60 +163,358 @@ public class BoostedYamlPluginConfig implements BytePluginConfig {
         YamlSpec spec = specs.get(name);
         if (spec == null) throw new IllegalArgumentException("No YAML spec registered for: " + name);
 
-        try {
-            Files.createDirectories(spec.outFile().getParent());
-
-            YamlDocument doc = loadYaml(
-                    spec.outFile().toFile(),
-                    spec.resourcePath(),
-                    spec.versionKey(),
-                    spec.requiredResource()
-            );
-
-            docs.put(name, doc);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to load YAML '" + name + "' for " + meta.getName(), e);
+        synchronized (reloadLock) {
+            YamlDocument doc = load(name, spec);
+            publish(Map.of(name, doc), locale);
+            rebind(Set.of(name));
         }
+        fireReloaded(Set.of(name));
     }
 
     /**
-     * Reload everything (config first, then locale, then lang, then any other registered YAML).
+     * Reload everything (config first, then locale, then lang, then any other registered YAML in parallel). Nothing
+     * is swapped in unless every document loaded.
      */
     @Override
     public void reload() {
+        fireReloaded(reloadAll());
+    }
+
+    private Set<String> reloadAll() {
+        synchronized (reloadLock) {
+            return reloadAllLocked();
+        }
+    }
+
+    private Set<String> reloadAllLocked() {
+        long start = System.nanoTime();
+        Map<String, YamlDocument> loaded = new HashMap<>();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        String resolvedLocale;
+        YamlSpec langSpec;
         try {
             Files.createDirectories(dataDir);
 
             // 1) Load config first (locale depends on it)
-            reload("config");
+            YamlDocument cfg = timed("config", specs.get("config"), timings);
+            loaded.put("config", cfg);
 
-            YamlDocument cfg = require("config");
             String configured = cfg.getString("language");
             boolean bypass = cfg.getBoolean("bypass-language-check");
-            this.locale = resolveLocale(configured, bypass);
+            resolvedLocale = resolveLocale(configured, bypass);
 
             // 2) Materialize lang spec for resolved locale, then load it
             Path langDir = dataDir.resolve("lang");
             Files.createDirectories(langDir);
 
-            YamlSpec langSpec = YamlSpec.of(
-                    langDir.resolve(locale + ".yml"),
-                    "lang/" + locale + ".yml",
+            langSpec = YamlSpec.of(
+                    langDir.resolve(resolvedLocale + ".yml"),
+                    "lang/" + resolvedLocale + ".yml",
                     "language-version"
             );
-            // overwrite "lang" spec to point at the active locale file
-            specs.put("lang", langSpec);
-            reload("lang");
-
-            // 3) Load any other registered docs (but avoid reloading config/lang again)
-            for (String name : specs.keySet()) {
-                if (name.equals("config") || name.equals("lang")) continue;
-                reload(name);
+            loaded.put("lang", timed("lang", langSpec, timings));
+
+            // 3) Every other registered doc is independent of the rest, so load them in parallel
+            Map<String, YamlSpec> others = new LinkedHashMap<>(specs);
+            others.remove("config");
+            others.remove("lang");
+            loaded.putAll(loadAll(others, timings));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load YAML for " + pluginName, e);
+        }
+
+        synchronized (this) {
+            docs = Map.copyOf(loaded);
+            locale = resolvedLocale;
+        }
+        // Point the "lang" spec at the active locale file only now, so a failed reload leaves it matching the docs
+        specs.put("lang", langSpec);
+        rebind(loaded.keySet());
+        saveSnapshots();
+
+        StringJoiner perFile = new StringJoiner(", ");
+        timings.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> perFile.add(e.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis(e.getValue()) + "ms"));
+        logger.info("Loaded {} YAML file(s) (locale={}) for {} in {}ms: {}", loaded.size(), locale, pluginName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), perFile);
+        return loaded.keySet();
+    }
+
+    /**
+     * Swaps {@code loaded} into the current snapshot in one step.
+     */
+    private synchronized void publish(Map<String, YamlDocument> loaded, String newLocale) {
+        Map<String, YamlDocument> next = new HashMap<>(docs);
+        next.putAll(loaded);
+        docs = Map.copyOf(next);
+        locale = newLocale;
+        saveSnapshots();
+    }
+
+    // --- Other locales ---
+
+    /**
+     * Loads the lang file for {@code tag} (ex: "de_DE") on demand, merged with the bundled defaults if the jar ships
+     * that locale. The document is not registered, so it is not part of {@link #reload()}; callers cache it and drop
+     * it when a reload reports "lang" or "lang:&lt;tag&gt;".
+     *
+     * @return The document, or null if neither the jar nor the data folder has a file for the locale, or it is broken
+     */
+    @Override
+    public @Nullable YamlDocument loadLang(String tag) {
+        Objects.requireNonNull(tag, "tag");
+        if (!LOCALE_TAG.matcher(tag).matches()) return null;
+        if (tag.equals(locale)) return lang();
+
+        Path file = dataDir.resolve("lang").resolve(tag + ".yml");
+        String resourcePath = "lang/" + tag + ".yml";
+        boolean bundled;
+        try (InputStream in = resources.apply(resourcePath)) {
+            bundled = in != null;
+        } catch (IOException e) {
+            bundled = false;
+        }
+        if (!bundled && !Files.isRegularFile(file)) return null;
+
+        YamlSpec spec = bundled
+                ? YamlSpec.of(file, resourcePath, "language-version")
+                : YamlSpec.externalOnly(file);
+        YamlDocument doc;
+        try {
+            doc = load("lang:" + tag, spec);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load {} for {}; falling back to other languages", file.getFileName(), pluginName, e);
+            return null;
+        }
+        synchronized (this) {
+            saveSnapshots();
+        }
+        return doc;
+    }
+
+    // --- Typed bindings ---
+
+    /**
+     * Binds the section at {@code path} (empty for the whole document) of document {@code name} to a record. Keys are
+     * the component names in kebab-case unless overridden with {@link ConfigKey}; {@link ConfigDefault} supplies
+     * values for missing keys, and anything else the record needs to check belongs in its compact constructor.
+     * The record is rebuilt after every reload of the document.
+     *
+     * @throws IllegalStateException If the section does not bind right now
+     */
+    @Override
+    public <T extends Record> ConfigBinding<T> bind(String name, String path, Class<T> type) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(type, "type");
+        ConfigBinding<T> binding = new ConfigBinding<>(name, path, type);
+        synchronized (reloadLock) {
+            binding.rebind(require(name));
+            bindings.add(binding);
+        }
+        return binding;
+    }
+
+    private void rebind(Set<String> reloaded) {
+        for (ConfigBinding<?> binding : bindings) {
+            if (!reloaded.contains(binding.document())) continue;
+            try {
+                binding.rebind(require(binding.document()));
+            } catch (RuntimeException e) {
+                logger.warn("Rebinding {} failed; keeping the previous values: {}", binding, e.getMessage());
             }
+        }
+    }
+
+    // --- Watching for file changes ---
 
-            logger.info("Loaded YAML (locale={}) for {}. Keys={}", locale, meta.getName(), specs.keySet());
+    /**
+     * Watches every registered document's directory and reloads documents whose files change, once edits have been
+     * quiet for {@code debounce}. Parsing happens on the watcher thread, so it never blocks a tick; a change to config
+     * reloads everything, since it can switch the locale. Reload listeners are then called on the main thread. A file
+     * that fails to parse is logged and the previous version stays in place.
+     */
+    @Override
+    public synchronized void startWatching(Duration debounce) {
+        Objects.requireNonNull(debounce, "debounce");
+        if (watcher != null) return;
+        try {
+            watcher = new YamlFileWatcher(pluginName, debounce, this::onFilesChanged, logger);
         } catch (IOException e) {
-            throw new IllegalStateException("Failed to load YAML for " + meta.getName(), e);
+            throw new IllegalStateException("Failed to watch YAML for " + pluginName, e);
+        }
+        for (YamlSpec spec : specs.values()) watcher.watch(spec.outFile().getParent());
+        // Other locales' files live here too and become relevant if the language changes
+        watcher.watch(dataDir.resolve("lang"));
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void stopWatching() {
+        if (watcher == null) return;
+        watcher.close();
+        watcher = null;
+    }
+
+    /**
+     * Adds a listener called after every reload: on the reloading thread for {@link #reload()} and
+     * {@link #reload(String)}, on the main thread for reloads triggered by {@link #startWatching}.
+     *
+     * @return A handle that removes the listener when run
+     */
+    @Override
+    public Runnable addReloadListener(ConfigReloadListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        reloadListeners.add(listener);
+        return () -> reloadListeners.remove(listener);
+    }
+
+    private void onFilesChanged(Set<Path> paths) {
+        Set<String> reloaded;
+        synchronized (reloadLock) {
+            Map<String, YamlSpec> changed = new LinkedHashMap<>();
+            specs.forEach((name, spec) -> {
+                Path file = spec.outFile().toAbsolutePath().normalize();
+                if ((paths.contains(file) || paths.contains(file.getParent())) && changedOnDisk(file)) {
+                    changed.put(name, spec);
+                }
+            });
+            Set<String> otherLocales = changedLangFiles(paths);
+            if (changed.isEmpty() && otherLocales.isEmpty()) return;
+
+            try {
+                if (changed.containsKey("config")) {
+                    reloaded = reloadAllLocked();
+                } else {
+                    Map<String, YamlDocument> loaded = loadAll(changed, new ConcurrentHashMap<>());
+                    publish(loaded, locale);
+                    rebind(loaded.keySet());
+                    reloaded = loaded.keySet();
+                    if (!reloaded.isEmpty()) logger.info("Reloaded changed YAML for {}: {}", pluginName, reloaded);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Reloading {} for {} failed; keeping the previous version", changed.keySet(), pluginName, e);
+                return;
+            }
+            if (!otherLocales.isEmpty()) {
+                Set<String> all = new HashSet<>(reloaded);
+                all.addAll(otherLocales);
+                reloaded = Set.copyOf(all);
+            }
+        }
+
+        if (reloadListeners.isEmpty() || plugin == null || !plugin.isEnabled()) return;
+        Set<String> fired = reloaded;
+        Bukkit.getScheduler().runTask(plugin, () -> fireReloaded(fired));
+    }
+
+    /**
+     * Names ("lang:&lt;tag&gt;") of lang files handed out by {@link #loadLang} that changed on disk. They are not
+     * reloaded here; holders drop them and load them again when next needed.
+     */
+    private Set<String> changedLangFiles(Set<Path> paths) {
+        Path langDir = dataDir.resolve("lang").toAbsolutePath().normalize();
+        Path active = specs.get("lang").outFile().toAbsolutePath().normalize();
+        Set<String> out = new HashSet<>();
+        for (Path file : stamps.keySet()) {
+            if (!langDir.equals(file.getParent()) || file.equals(active)) continue;
+            if ((paths.contains(file) || paths.contains(langDir)) && changedOnDisk(file)) {
+                // Forget the stamp so the file is only reported again once it has been reloaded
+                stamps.remove(file);
+                String name = file.getFileName().toString();
+                out.add("lang:" + name.substring(0, name.length() - ".yml".length()));
+            }
+        }
+        return out;
+    }
+
+    private boolean changedOnDisk(Path file) {
+        return !Objects.equals(stamps.get(file), FileStamp.of(file));
+    }
+
+    private void fireReloaded(Set<String> reloaded) {
+        for (ConfigReloadListener listener : reloadListeners) {
+            try {
+                listener.onReload(reloaded);
+            } catch (RuntimeException e) {
+                logger.warn("Config reload listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private record FileStamp(long modifiedMillis, long size) {
+        static FileStamp of(Path file) {
+            try {
+                return new FileStamp(Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    private Map<String, YamlDocument> loadAll(Map<String, YamlSpec> todo, Map<String, Long> timings) {
+        int threads = Math.min(todo.size(), Math.min(MAX_LOAD_THREADS, Runtime.getRuntime().availableProcessors()));
+        Map<String, YamlDocument> out = new HashMap<>();
+        if (threads <= 1) {
+            todo.forEach((name, spec) -> out.put(name, timed(name, spec, timings)));
+            return out;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bytelib-yaml-" + pluginName);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Map<String, Future<YamlDocument>> futures = new LinkedHashMap<>();
+            todo.forEach((name, spec) -> futures.put(name, pool.submit(() -> timed(name, spec, timings))));
+
+            IllegalStateException failure = null;
+            for (Map.Entry<String, Future<YamlDocument>> entry : futures.entrySet()) {
+                try {
+                    out.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    IllegalStateException err = e.getCause() instanceof IllegalStateException ise
+                            ? ise
+                            : new IllegalStateException("Failed to load YAML '" + entry.getKey() + "' for " + pluginName, e.getCause());
+                    if (failure == null) failure = err;
+                    else failure.addSuppressed(err);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading YAML for " + pluginName, e);
+                }
+            }
+            if (failure != null) throw failure;
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private YamlDocument timed(String name, YamlSpec spec, Map<String, Long> timings) {
+        long start = System.nanoTime();
+        YamlDocument doc = load(name, spec);
+        timings.put(name, System.nanoTime() - start);
+        return doc;
+    }
+
+    private YamlDocument load(String name, YamlSpec spec) {
+        try {
+            Files.createDirectories(spec.outFile().getParent());
+
+            YamlDocument doc = loadYaml(
+                    spec.outFile().toFile(),
+                    spec.resourcePath(),
+                    spec.versionKey(),
+                    spec.requiredResource()
+            );
+            Path file = spec.outFile().toAbsolutePath().normalize();
+            FileStamp stamp = FileStamp.of(file);
+            if (stamp != null) stamps.put(file, stamp);
+            return doc;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load YAML '" + name + "' for " + pluginName, e);
         }
     }
 
@@ -173,9 +525,12 @@ public class BoostedYamlPluginConfig implements BytePluginConfig {
             boolean requiredResource
     ) throws IOException {
 
-        InputStream resource = resourcePath.isEmpty()
-                ? null
-                : plugin.getResource(resourcePath);
+        byte[] resource = null;
+        if (!resourcePath.isEmpty()) {
+            try (InputStream in = resources.apply(resourcePath)) {
+                if (in != null) resource = in.readAllBytes();
+            }
+        }
 
         if (resource == null) {
             if (requiredResource && !resourcePath.isEmpty()) {
@@ -184,41 +539,95 @@ public class BoostedYamlPluginConfig implements BytePluginConfig {
 
             if (!outFile.exists()) {
                 Files.createDirectories(outFile.toPath().getParent());
-                Files.writeString(outFile.toPath(), "# Created by " + meta.getName() + "\n");
+                Files.writeString(outFile.toPath(), "# Created by " + pluginName + "\n");
             }
 
-            resource = new java.io.ByteArrayInputStream(new byte[0]);
+            // Nothing to merge, and updating against empty defaults would drop every key in the file
+            return YamlDocument.create(
+                    outFile,
+                    GeneralSettings.DEFAULT,
+                    LoaderSettings.builder().setAutoUpdate(false).setCreateFileIfAbsent(false).build(),
+                    DumperSettings.DEFAULT,
+                    UpdaterSettings.builder().setAutoSave(false).build()
+            );
         }
 
+        // Saving is left to writeIfChanged, so neither loading nor updating touches the file by itself
         UpdaterSettings updaterSettings =
                 (versionKey == null)
-                        ? UpdaterSettings.DEFAULT
+                        ? UpdaterSettings.builder().setAutoSave(false).build()
                         : UpdaterSettings.builder()
+                        .setAutoSave(false)
                         .setVersioning(new BasicVersioning(versionKey))
                         .setOptionSorting(UpdaterSettings.OptionSorting.SORT_BY_DEFAULTS)
                         .build();
 
+        // The file is already the merged result of these exact defaults, so there is nothing to update or write
+        Path path = outFile.toPath();
+        if (snapshots != null && Files.exists(path)
+                && snapshots.matches(path, Files.readAllBytes(path), resource, versionKey)) {
+            return YamlDocument.create(
+                    outFile,
+                    GeneralSettings.DEFAULT,
+                    LoaderSettings.builder().setAutoUpdate(false).setCreateFileIfAbsent(false).build(),
+                    DumperSettings.DEFAULT,
+                    updaterSettings
+            );
+        }
+
         YamlDocument doc = YamlDocument.create(
                 outFile,
-                resource,
+                new ByteArrayInputStream(resource),
                 GeneralSettings.DEFAULT,
-                LoaderSettings.builder().setAutoUpdate(true).build(),
+                LoaderSettings.builder().setAutoUpdate(true).setCreateFileIfAbsent(false).build(),
                 DumperSettings.DEFAULT,
                 updaterSettings
         );
 
-        doc.update();
-        doc.save();
+        byte[] merged = doc.dump().getBytes(StandardCharsets.UTF_8);
+        writeIfChanged(path, merged);
+        if (snapshots != null) snapshots.record(path, merged, resource, versionKey);
         return doc;
     }
 
+    private void saveSnapshots() {
+        if (snapshots == null) return;
+        try {
+            snapshots.saveIfDirty();
+        } catch (IOException e) {
+            logger.warn("Could not write the YAML snapshot index for {}: {}", pluginName, e.toString());
+        }
+    }
+
+    /**
+     * Writes {@code content} only if it differs from what is on disk, so unchanged files keep their mtime and an
+     * editor that has them open is not raced. Writes go to a temp file in the same directory that is then moved over
+     * the original, so a crash mid-write never leaves a truncated file behind.
+     */
+    private void writeIfChanged(Path file, byte[] content) throws IOException {
+        if (Files.exists(file) && Arrays.equals(Files.readAllBytes(file), content)) return;
+
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        logger.info("Wrote updated {} for {}", file.getFileName(), pluginName);
+    }
+
 
     private String resolveLocale(String configured, boolean bypass) {
         if (configured == null || configured.isBlank()) return "en_US";
         if (bypass) return configured;
 
         String resourcePath = "lang/" + configured + ".yml";
-        try (InputStream ignored = plugin.getResource(resourcePath)) {
+        try (InputStream ignored = resources.apply(resourcePath)) {
             if (ignored != null) return configured;
         } catch (IOException ignored) {
             // nothing
@@ -2,6 +2,8 @@ package org.reprogle.bytelib.config;
 
 import dev.dejvokep.boostedyaml.YamlDocument;
 
+import java.time.Duration;
+
 public interface BytePluginConfig {
     YamlDocument config();
 
@@ -13,9 +15,51 @@ public interface BytePluginConfig {
 
     YamlDocument require(String name);
 
+    /**
+     * Loads the lang file of another locale (ex: "de_DE") on demand. See
+     * {@link BoostedYamlPluginConfig#loadLang(String)}.
+     *
+     * @return The document, or null if the locale has no lang file. By default only the active locale has one
+     */
+    default YamlDocument loadLang(String tag) {
+        return tag.equals(locale()) ? lang() : null;
+    }
+
     void register(String name, BoostedYamlPluginConfig.YamlSpec spec);
 
     void reload(String name);
 
     void reload();
+
+    /**
+     * Binds a section of document {@code name} to a record. See
+     * {@link BoostedYamlPluginConfig#bind(String, String, Class)}.
+     */
+    <T extends Record> ConfigBinding<T> bind(String name, String path, Class<T> type);
+
+    /**
+     * Binds a section of the main config; see {@link #bind(String, String, Class)}.
+     */
+    default <T extends Record> ConfigBinding<T> bind(String path, Class<T> type) {
+        return bind("config", path, type);
+    }
+
+    /**
+     * Reloads documents when their files change on disk. Does nothing unless the implementation watches files.
+     */
+    default void startWatching(Duration debounce) {
+    }
+
+    default void stopWatching() {
+    }
+
+    /**
+     * Adds a listener called after every reload. Implementations that do not report reloads never call it.
+     *
+     * @return A handle that removes the listener when run
+     */
+    default Runnable addReloadListener(ConfigReloadListener listener) {
+        return () -> {
+        };
+    }
 }
@@ -0,0 +1,60 @@
+package org.reprogle.bytelib.config;
+
+import dev.dejvokep.boostedyaml.YamlDocument;
+import dev.dejvokep.boostedyaml.block.implementation.Section;
+
+import java.util.function.Supplier;
+
+/**
+ * A YAML section bound to an immutable record, from {@link BytePluginConfig#bind}. The record is rebuilt whenever its
+ * document reloads; {@link #get()} is a volatile read, so it is cheap on hot paths and safe from any thread.
+ * <p>
+ * If a reload produces a section that no longer binds (a missing key, a value of the wrong type, or an exception
+ * from the record's compact constructor), the error is logged and the previous record stays in place.
+ *
+ * @param <T> The record type
+ */
+public final class ConfigBinding<T extends Record> implements Supplier<T> {
+    private final String document;
+    private final String path;
+    private final RecordBinder<T> binder;
+    private volatile T value;
+
+    ConfigBinding(String document, String path, Class<T> type) {
+        this.document = document;
+        this.path = path;
+        this.binder = RecordBinder.of(type);
+    }
+
+    @Override
+    public T get() {
+        return value;
+    }
+
+    public String document() {
+        return document;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public Class<T> type() {
+        return binder.type();
+    }
+
+    /**
+     * Binds a fresh record from {@code doc}, replacing the current one only if binding succeeds.
+     */
+    void rebind(YamlDocument doc) {
+        Section section = path.isEmpty() ? doc : doc.getSection(path);
+        String where = path.isEmpty() ? document : document + ":" + path;
+        if (section == null) throw new IllegalStateException("Config " + where + ": section is missing");
+        value = binder.bind(section, where);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigBinding[" + document + (path.isEmpty() ? "" : ":" + path) + " -> " + binder.type().getSimpleName() + "]";
+    }
+}
@@ -0,0 +1,16 @@
+package org.reprogle.bytelib.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The value used when a record component's key is missing from the YAML, written as it would be in the file
+ * ({@code "20"}, {@code "true"}, {@code "5s"}). Components without a default are required.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface ConfigDefault {
+    String value();
+}
@@ -0,0 +1,16 @@
+package org.reprogle.bytelib.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the YAML key a record component is bound from. Without it, the component name is converted to kebab-case
+ * ({@code maxPlayers} reads {@code max-players}).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface ConfigKey {
+    String value();
+}
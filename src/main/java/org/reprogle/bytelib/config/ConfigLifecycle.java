@@ -0,0 +1,22 @@
+package org.reprogle.bytelib.config;
+
+import com.google.inject.Inject;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+/**
+ * Stops the YAML file watcher on disable, so a watcher started with {@link BytePluginConfig#startWatching} never
+ * outlives the plugin.
+ */
+public final class ConfigLifecycle implements PluginLifecycle {
+    private final BytePluginConfig config;
+
+    @Inject
+    public ConfigLifecycle(BytePluginConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void onDisable() {
+        config.stopWatching();
+    }
+}
@@ -2,11 +2,17 @@ package org.reprogle.bytelib.config;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
 
 public class ConfigModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(BytePluginConfig.class).to(BoostedYamlPluginConfig.class).in(Scopes.SINGLETON);
         bind(Translator.class).to(MiniMessageTranslator.class).in(Scopes.SINGLETON);
+
+        Multibinder.newSetBinder(binder(), PluginLifecycle.class)
+                .addBinding()
+                .to(ConfigLifecycle.class);
     }
 }
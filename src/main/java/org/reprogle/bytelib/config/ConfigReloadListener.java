@@ -0,0 +1,14 @@
+package org.reprogle.bytelib.config;
+
+import java.util.Set;
+
+/**
+ * Notified after {@link BytePluginConfig} has swapped in freshly loaded documents.
+ */
+@FunctionalInterface
+public interface ConfigReloadListener {
+    /**
+     * @param reloaded Names of the documents that were reloaded (ex: "config", "lang", "menus")
+     */
+    void onReload(Set<String> reloaded);
+}
@@ -2,44 +2,153 @@ package org.reprogle.bytelib.config;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import dev.dejvokep.boostedyaml.YamlDocument;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.identity.Identity;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.TranslationArgument;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.minimessage.Context;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Inserting;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.ArgumentQueue;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import net.kyori.adventure.text.minimessage.tag.standard.StandardTags;
 import net.kyori.adventure.title.Title;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
+/**
+ * Renders lang entries with MiniMessage. Each entry's raw string is looked up once per reload, the prefix is parsed
+ * once per reload, and calls without resolvers are served from a cache of rendered components. Entries without any
+ * tags skip MiniMessage entirely.
+ * <p>
+ * Calls whose resolvers all insert a fixed component, like {@link Placeholder#unparsed} and the values of
+ * {@link #renderEach}, do not parse the entry either: it is parsed once per reload with a marker where each
+ * placeholder goes, and each call copies that tree with the values in place of the markers. Other resolvers, and
+ * placeholders inside hover text, translation arguments, or per-character styling, still parse the entry per call.
+ * <p>
+ * Per-locale rendering falls back key by key along the chain {@code de_AT -> de_DE -> server locale -> en_US}. Lang
+ * files other than the active one are loaded on a background thread the first time a recipient needs them; until
+ * they are ready, those recipients get the rest of their chain. Only the most recently used locales stay loaded, and
+ * entries with identical text share one template across locales.
+ */
 @Singleton
 public final class MiniMessageTranslator implements Translator {
+    private static final String FALLBACK_LOCALE = "en_US";
+    private static final int MAX_LANG_FILES = 16;
+    private static final int MAX_CHAINS = 32;
+    private static final int MAX_SHARED_TEMPLATES = 8192;
+    // Key prefix of the markers standing in for placeholders; the NUL keeps it apart from real translation keys
+    private static final String MARKER = "\0bytelib-placeholder:";
+    // Stands for an entry that cannot be pre-split; compared by identity
+    private static final Component NOT_SPLIT = Component.text("not split");
+    // Tags that restyle their content character by character, so what they wrap has to go through MiniMessage
+    private static final Pattern PER_CHARACTER_TAGS =
+            Pattern.compile("<(gradient|rainbow|transition)\\b", Pattern.CASE_INSENSITIVE);
+    private static final TagResolver STANDARD_TAGS = StandardTags.defaults();
+    // Resolves every tag that is neither a standard one nor the prefix to a marker
+    private static final TagResolver PLACEHOLDER_MARKERS = new TagResolver() {
+        @Override
+        public Tag resolve(String name, ArgumentQueue arguments, Context ctx) {
+            return has(name) ? Tag.selfClosingInserting(Component.translatable(MARKER + name)) : null;
+        }
+
+        @Override
+        public boolean has(String name) {
+            return !name.equals("prefix") && !STANDARD_TAGS.has(name);
+        }
+    };
 
     private final BytePluginConfig cfg;
     private final MiniMessage mm = MiniMessage.miniMessage();
+    // One loader thread, started on demand and gone again once idle, so nothing needs shutting down
+    private final Executor loader = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "bytelib-lang-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Everything derived from the active lang document; rebuilt when a reload replaces that document
+    private volatile Chain serverChain;
+    // Lang files of other locales by tag, empty if the locale has no file
+    private final Map<String, Optional<YamlDocument>> langFiles = lru(MAX_LANG_FILES);
+    // Tags being loaded in the background
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    // Bumped by every invalidation, so a load that started before a reload does not store a stale file
+    private volatile int generation;
+    // Fallback chains by requested locale tag
+    private final Map<String, Chain> chains = lru(MAX_CHAINS);
+    // Templates by raw text, shared by every locale that has the same entry
+    private final Map<String, Template> templates = lru(MAX_SHARED_TEMPLATES);
 
     @Inject
     public MiniMessageTranslator(BytePluginConfig cfg) {
         this.cfg = cfg;
+        cfg.addReloadListener(reloaded -> {
+            // "lang:<tag>" is another locale's file changing on disk
+            if (reloaded.contains("config") || reloaded.stream().anyMatch(name -> name.startsWith("lang"))) invalidate();
+        });
     }
 
     @Override
     public Component tr(String key, TagResolver... resolvers) {
-        String raw = cfg.lang().getString(key);
-        if (raw == null) return Component.empty();
-
-        List<TagResolver> all = new ArrayList<>(resolvers.length + 1);
+        return render(serverChain(), key, resolvers);
+    }
 
-        String prefixRaw = cfg.lang().getString("prefix");
-        if (prefixRaw != null) {
-            all.add(Placeholder.component("prefix", mm.deserialize(prefixRaw)));
-        } else {
-            all.add(Placeholder.component("prefix", Component.empty()));
-        }
+    @Override
+    public Component tr(Locale locale, String key, TagResolver... resolvers) {
+        return render(chain(locale), key, resolvers);
+    }
 
-        all.addAll(Arrays.asList(resolvers));
+    @Override
+    public Component tr(Audience audience, String key, TagResolver... resolvers) {
+        return tr(audience.get(Identity.LOCALE).orElse(null), key, resolvers);
+    }
 
-        return mm.deserialize(raw, TagResolver.resolver(all));
+    @Override
+    public <A extends Audience> void renderEach(
+            String key,
+            Collection<? extends A> recipients,
+            Function<? super A, Map<String, String>> perRecipient,
+            BiConsumer<? super A, Component> sink,
+            TagResolver... shared
+    ) {
+        Map<Locale, Chain> chainsByLocale = new HashMap<>();
+        Map<Group, Component> rendered = new HashMap<>();
+        for (A recipient : recipients) {
+            Chain chain = chainsByLocale.computeIfAbsent(recipient.get(Identity.LOCALE).orElse(Locale.ROOT), this::chain);
+            Entry entry = chain.entry(key);
+            Map<String, String> values = perRecipient.apply(recipient);
+            // Locales that resolve to the same text and prefix share a group, whichever files the text came from
+            Group group = new Group(entry == null ? null : entry.template.raw, chain.prefixRaw, values == null ? Map.of() : values);
+            Component component = rendered.get(group);
+            if (component == null) {
+                component = render(chain, entry, group.values(), shared);
+                rendered.put(group, component);
+            }
+            sink.accept(recipient, component);
+        }
     }
 
     @Override
@@ -48,5 +157,340 @@ public final class MiniMessageTranslator implements Translator {
         Component subtitle = tr(keyBase + ".subtitle", resolvers);
         return Title.title(title, subtitle, times);
     }
-}
 
+    private Component render(Chain chain, String key, TagResolver... resolvers) {
+        return render(chain, chain.entry(key), resolvers);
+    }
+
+    private Component render(Chain chain, Entry entry, Map<String, String> values, TagResolver... shared) {
+        if (values.isEmpty()) return render(chain, entry, shared);
+
+        TagResolver[] resolvers = Arrays.copyOf(shared, shared.length + values.size());
+        int i = shared.length;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            resolvers[i++] = Placeholder.unparsed(value.getKey(), value.getValue());
+        }
+        return render(chain, entry, resolvers);
+    }
+
+    private Component render(Chain chain, Entry entry, TagResolver... resolvers) {
+        if (entry == null) return Component.empty();
+        Template template = entry.template;
+        if (template.plain || resolvers.length == 0) return entry.rendered(chain);
+
+        Component filled = entry.fill(chain, resolvers);
+        if (filled != null) return filled;
+
+        TagResolver[] all = new TagResolver[resolvers.length + 1];
+        all[0] = chain.prefix;
+        System.arraycopy(resolvers, 0, all, 1, resolvers.length);
+        return mm.deserialize(template.raw, TagResolver.resolver(all));
+    }
+
+    // ----------------------
+    // Bundles
+    // ----------------------
+
+    private void invalidate() {
+        synchronized (langFiles) {
+            generation++;
+            langFiles.clear();
+        }
+        serverChain = null;
+        synchronized (chains) {
+            chains.clear();
+        }
+    }
+
+    private Chain serverChain() {
+        YamlDocument lang = cfg.lang();
+        Chain c = serverChain;
+        // The identity check also covers a reload racing with the listener clearing the field
+        if (c == null || c.files.getFirst() != lang || c.stale()) {
+            c = chainFor(cfg.locale());
+            serverChain = c;
+        }
+        return c;
+    }
+
+    private Chain chain(Locale locale) {
+        String tag = locale == null || locale.getLanguage().isEmpty() ? cfg.locale() : tag(locale);
+        if (tag.equals(cfg.locale())) return serverChain();
+
+        Chain c;
+        synchronized (chains) {
+            c = chains.get(tag);
+        }
+        if (c != null && c.files.contains(cfg.lang()) && !c.stale()) return c;
+
+        c = chainFor(tag);
+        synchronized (chains) {
+            chains.put(tag, c);
+        }
+        return c;
+    }
+
+    /**
+     * The chain of the loaded files along {@code tag}'s fallbacks. Files still loading are left out and remembered, so
+     * the chain is rebuilt once they are ready.
+     */
+    private Chain chainFor(String tag) {
+        List<YamlDocument> files = new ArrayList<>(4);
+        List<String> pending = new ArrayList<>(0);
+        for (String candidate : fallbacks(tag)) {
+            YamlDocument doc = candidate.equals(cfg.locale()) ? cfg.lang() : langFile(candidate);
+            if (doc == null && loading.contains(candidate)) pending.add(candidate);
+            if (doc != null && !files.contains(doc)) files.add(doc);
+        }
+        return new Chain(files, pending);
+    }
+
+    private List<String> fallbacks(String tag) {
+        List<String> out = new ArrayList<>(4);
+        out.add(tag);
+        String language = tag.contains("_") ? tag.substring(0, tag.indexOf('_')) : tag;
+        String generic = language + "_" + language.toUpperCase(Locale.ROOT);
+        if (!out.contains(generic)) out.add(generic);
+        if (!out.contains(cfg.locale())) out.add(cfg.locale());
+        if (!out.contains(FALLBACK_LOCALE)) out.add(FALLBACK_LOCALE);
+        return out;
+    }
+
+    /**
+     * Returns the lang file for {@code tag}, or null if it does not exist or is not loaded yet. The first call for a tag
+     * starts loading it in the background, so the (main) thread rendering never waits on disk.
+     */
+    private YamlDocument langFile(String tag) {
+        Optional<YamlDocument> file;
+        synchronized (langFiles) {
+            file = langFiles.get(tag);
+        }
+        if (file != null) return file.orElse(null);
+
+        if (loading.add(tag)) {
+            int started = generation;
+            loader.execute(() -> {
+                try {
+                    Optional<YamlDocument> loaded = Optional.ofNullable(cfg.loadLang(tag));
+                    synchronized (langFiles) {
+                        if (generation == started) langFiles.put(tag, loaded);
+                    }
+                } finally {
+                    loading.remove(tag);
+                }
+            });
+        }
+        return null;
+    }
+
+    private Template template(String raw) {
+        synchronized (templates) {
+            return templates.computeIfAbsent(raw, Template::new);
+        }
+    }
+
+    /**
+     * Whether {@code resolver} only inserts a fixed component in place of a self-closing tag, so the marker for its key
+     * can simply be swapped for that component.
+     */
+    private static boolean substitutable(TagResolver resolver) {
+        return resolver instanceof TagResolver.Single single
+                && single.tag() instanceof Inserting inserting && !inserting.allowsChildren()
+                && !single.key().equals("prefix") && !STANDARD_TAGS.has(single.key());
+    }
+
+    /**
+     * Copies {@code c} with every marker replaced by its value, or returns null if a marker has none.
+     */
+    private static Component fill(Component c, TagResolver[] resolvers) {
+        if (c instanceof TranslatableComponent marker && marker.key().startsWith(MARKER)) {
+            Component value = valueOf(marker.key().substring(MARKER.length()), resolvers);
+            if (value == null) return null;
+            // Compacting may have moved the enclosing style onto the marker
+            return marker.style().isEmpty() ? value : value.applyFallbackStyle(marker.style());
+        }
+
+        List<Component> children = c.children();
+        List<Component> filled = null;
+        for (int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component f = fill(child, resolvers);
+            if (f == null) return null;
+            if (f != child) {
+                if (filled == null) filled = new ArrayList<>(children);
+                filled.set(i, f);
+            }
+        }
+        return filled == null ? c : c.children(filled);
+    }
+
+    private static Component valueOf(String name, TagResolver[] resolvers) {
+        for (TagResolver resolver : resolvers) {
+            TagResolver.Single single = (TagResolver.Single) resolver;
+            if (single.key().equals(name)) return ((Inserting) single.tag()).value();
+        }
+        return null;
+    }
+
+    /**
+     * Whether a marker sits somewhere {@link #fill} does not look: hover text or translation arguments.
+     */
+    private static boolean hidesMarker(Component c) {
+        HoverEvent<?> hover = c.style().hoverEvent();
+        if (hover != null) {
+            if (hover.value() instanceof Component text && hasMarker(text)) return true;
+            if (hover.value() instanceof HoverEvent.ShowEntity entity
+                    && entity.name() != null && hasMarker(entity.name())) {
+                return true;
+            }
+        }
+        if (c instanceof TranslatableComponent translatable) {
+            for (TranslationArgument argument : translatable.arguments()) {
+                if (hasMarker(argument.asComponent())) return true;
+            }
+        }
+        for (Component child : c.children()) {
+            if (hidesMarker(child)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasMarker(Component c) {
+        if (c instanceof TranslatableComponent marker && marker.key().startsWith(MARKER)) return true;
+        for (Component child : c.children()) {
+            if (hasMarker(child)) return true;
+        }
+        return hidesMarker(c);
+    }
+
+    private static String tag(Locale locale) {
+        String country = locale.getCountry();
+        return country.isEmpty() ? locale.getLanguage() : locale.getLanguage() + "_" + country.toUpperCase(Locale.ROOT);
+    }
+
+    private static <K, V> Map<K, V> lru(int max) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    /**
+     * The lang files consulted for one locale, most specific first, with the entries resolved through them.
+     */
+    private final class Chain {
+        private final List<YamlDocument> files;
+        // Tags of files that were still loading when the chain was built
+        private final List<String> pending;
+        private final String prefixRaw;
+        private final TagResolver prefix;
+        private final ConcurrentHashMap<String, Optional<Entry>> entries = new ConcurrentHashMap<>();
+
+        private Chain(List<YamlDocument> files, List<String> pending) {
+            this.files = List.copyOf(files);
+            this.pending = List.copyOf(pending);
+            this.prefixRaw = lookup("prefix");
+            this.prefix = Placeholder.component("prefix", prefixRaw == null ? Component.empty() : mm.deserialize(prefixRaw));
+        }
+
+        /**
+         * Whether a file this chain is missing has finished loading since it was built.
+         */
+        private boolean stale() {
+            for (String tag : pending) {
+                if (!loading.contains(tag)) return true;
+            }
+            return false;
+        }
+
+        private Entry entry(String key) {
+            Optional<Entry> e = entries.get(key);
+            if (e == null) {
+                e = entries.computeIfAbsent(key, k -> {
+                    String raw = lookup(k);
+                    return raw == null ? Optional.empty() : Optional.of(new Entry(template(raw)));
+                });
+            }
+            return e.orElse(null);
+        }
+
+        private String lookup(String key) {
+            for (YamlDocument file : files) {
+                String raw = file.getString(key);
+                if (raw != null) return raw;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Recipients of one {@link #renderEach} call that get the same component.
+     */
+    private record Group(String raw, String prefix, Map<String, String> values) {
+    }
+
+    /**
+     * One key of one chain. The rendered component depends on the chain's prefix, so it lives here rather than on the
+     * shared template.
+     */
+    private final class Entry {
+        private final Template template;
+        private volatile Component rendered;
+        // Parsed with markers in place of the placeholders, or NOT_SPLIT
+        private volatile Component split;
+
+        private Entry(Template template) {
+            this.template = template;
+        }
+
+        /**
+         * The entry rendered with only the prefix resolver. Components are immutable, so one instance is shared by
+         * every caller.
+         */
+        private Component rendered(Chain chain) {
+            Component c = rendered;
+            if (c == null) {
+                c = template.plain ? template.text : mm.deserialize(template.raw, chain.prefix);
+                rendered = c;
+            }
+            return c;
+        }
+
+        /**
+         * The entry rendered with {@code resolvers} without parsing it again, or null if it has to be parsed.
+         */
+        private Component fill(Chain chain, TagResolver[] resolvers) {
+            for (TagResolver resolver : resolvers) {
+                if (!substitutable(resolver)) return null;
+            }
+            Component s = split;
+            if (s == null) {
+                s = PER_CHARACTER_TAGS.matcher(template.raw).find()
+                        ? NOT_SPLIT
+                        : mm.deserialize(template.raw, chain.prefix, PLACEHOLDER_MARKERS);
+                if (s != NOT_SPLIT && hidesMarker(s)) s = NOT_SPLIT;
+                split = s;
+            }
+            if (s == NOT_SPLIT) return null;
+
+            Component filled = MiniMessageTranslator.fill(s, resolvers);
+            // MiniMessage compacts what it parses; doing the same keeps both paths' results equal
+            return filled == null ? null : filled.compact();
+        }
+    }
+
+    private static final class Template {
+        private final String raw;
+        // No tags at all, so neither the prefix nor any resolver can change the result
+        private final boolean plain;
+        private final Component text;
+
+        private Template(String raw) {
+            this.raw = raw;
+            this.plain = raw.indexOf('<') < 0;
+            this.text = plain ? Component.text(raw) : null;
+        }
+    }
+}
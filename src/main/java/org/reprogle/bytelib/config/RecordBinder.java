@@ -0,0 +1,251 @@
+package org.reprogle.bytelib.config;
+
+import dev.dejvokep.boostedyaml.block.implementation.Section;
+import dev.dejvokep.boostedyaml.route.Route;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Builds records from YAML sections. The keys, conversions, and constructor of each record type are worked out once
+ * and cached, so binding is a straight walk over the components.
+ */
+final class RecordBinder<T extends Record> {
+    private static final ClassValue<RecordBinder<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected RecordBinder<?> computeValue(Class<?> type) {
+            return new RecordBinder<>(type.asSubclass(Record.class));
+        }
+    };
+
+    private final Class<T> type;
+    private final Slot[] slots;
+    private final MethodHandle constructor;
+
+    private record Slot(String component, String key, Converter converter, String defaultValue) {
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(Object raw, String where);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Record> RecordBinder<T> of(Class<T> type) {
+        if (!type.isRecord()) throw new IllegalArgumentException(type.getName() + " is not a record");
+        return (RecordBinder<T>) CACHE.get(type);
+    }
+
+    private RecordBinder(Class<T> type) {
+        this.type = type;
+        RecordComponent[] components = type.getRecordComponents();
+        this.slots = new Slot[components.length];
+        Class<?>[] paramTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent c = components[i];
+            ConfigKey key = c.getAnnotation(ConfigKey.class);
+            ConfigDefault def = c.getAnnotation(ConfigDefault.class);
+            slots[i] = new Slot(
+                    c.getName(),
+                    key != null ? key.value() : kebabCase(c.getName()),
+                    converterFor(c.getGenericType(), type.getSimpleName() + "." + c.getName()),
+                    def == null ? null : def.value()
+            );
+            paramTypes[i] = c.getType();
+        }
+        try {
+            var ctor = type.getDeclaredConstructor(paramTypes);
+            ctor.setAccessible(true);
+            this.constructor = MethodHandles.lookup().unreflectConstructor(ctor);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot bind config to " + type.getName(), e);
+        }
+    }
+
+    Class<T> type() {
+        return type;
+    }
+
+    @SuppressWarnings("unchecked")
+    T bind(Section section, String where) {
+        Object[] args = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            String at = where + "." + slot.key();
+            Object raw = section.get(Route.from(slot.key()));
+            if (raw == null) {
+                if (slot.defaultValue() == null) throw new IllegalStateException("Config " + at + ": required value is missing");
+                raw = slot.defaultValue();
+            }
+            args[i] = slot.converter().convert(raw, at);
+        }
+        try {
+            return (T) constructor.invokeWithArguments(args);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            // Validation in the record's compact constructor lands here
+            throw new IllegalStateException("Config " + where + ": " + type.getSimpleName() + " rejected the values: "
+                    + t.getMessage(), t);
+        }
+    }
+
+    // --- Conversions ---
+
+    private static Converter converterFor(Type generic, String component) {
+        Class<?> raw = rawClass(generic);
+        if (raw == String.class) return (v, w) -> scalar(v, w).toString();
+        if (raw == int.class || raw == Integer.class) return (v, w) -> number(v, w, () -> decimal(v, w).intValueExact());
+        if (raw == long.class || raw == Long.class) return (v, w) -> number(v, w, () -> decimal(v, w).longValueExact());
+        if (raw == double.class || raw == Double.class) return (v, w) -> number(v, w, () -> decimal(v, w).doubleValue());
+        if (raw == float.class || raw == Float.class) return (v, w) -> number(v, w, () -> decimal(v, w).floatValue());
+        if (raw == boolean.class || raw == Boolean.class) return RecordBinder::bool;
+        if (raw == Duration.class) return RecordBinder::duration;
+        if (raw.isEnum()) return (v, w) -> enumValue(raw, v, w);
+        if (raw.isRecord()) {
+            RecordBinder<?> nested = of(raw.asSubclass(Record.class));
+            return (v, w) -> nested.bind(section(v, w), w);
+        }
+        if (raw == List.class) {
+            Converter element = converterFor(typeArgument(generic, 0, component), component);
+            return (v, w) -> {
+                if (!(v instanceof List<?> list)) throw mismatch(w, "a list", v);
+                List<Object> out = new ArrayList<>(list.size());
+                for (int i = 0; i < list.size(); i++) out.add(element.convert(list.get(i), w + "[" + i + "]"));
+                return Collections.unmodifiableList(out);
+            };
+        }
+        if (raw == Map.class) {
+            if (typeArgument(generic, 0, component) != String.class) {
+                throw new IllegalArgumentException("Config maps must have String keys: " + component);
+            }
+            Converter valueConverter = converterFor(typeArgument(generic, 1, component), component);
+            return (v, w) -> {
+                Section s = section(v, w);
+                Map<String, Object> out = new LinkedHashMap<>();
+                for (Object key : s.getKeys()) {
+                    String k = String.valueOf(key);
+                    out.put(k, valueConverter.convert(s.get(Route.from(key)), w + "." + k));
+                }
+                return Collections.unmodifiableMap(out);
+            };
+        }
+        throw new IllegalArgumentException("Unsupported config type " + generic.getTypeName() + " for " + component);
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> c) return c;
+        if (type instanceof ParameterizedType p) return (Class<?>) p.getRawType();
+        throw new IllegalArgumentException("Unsupported config type " + type.getTypeName());
+    }
+
+    private static Type typeArgument(Type type, int index, String component) {
+        if (type instanceof ParameterizedType p) return p.getActualTypeArguments()[index];
+        throw new IllegalArgumentException("Raw collection type on " + component + "; declare its type arguments");
+    }
+
+    private static Object scalar(Object v, String where) {
+        if (v instanceof Section || v instanceof List<?>) throw mismatch(where, "a single value", v);
+        return v;
+    }
+
+    private static Section section(Object v, String where) {
+        if (!(v instanceof Section s)) throw mismatch(where, "a section", v);
+        return s;
+    }
+
+    private static BigDecimal decimal(Object v, String where) {
+        Object s = scalar(v, where);
+        return s instanceof Number n ? new BigDecimal(n.toString()) : new BigDecimal(s.toString().trim());
+    }
+
+    private static Object number(Object v, String where, Supplier<Object> parse) {
+        try {
+            return parse.get();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw mismatch(where, "a number in range", v);
+        }
+    }
+
+    private static Object bool(Object v, String where) {
+        Object s = scalar(v, where);
+        if (s instanceof Boolean b) return b;
+        String text = s.toString().trim().toLowerCase(Locale.ROOT);
+        return switch (text) {
+            case "true", "yes", "on" -> true;
+            case "false", "no", "off" -> false;
+            default -> throw mismatch(where, "true or false", v);
+        };
+    }
+
+    /**
+     * Accepts ISO-8601 ({@code PT5S}), a number with a unit ({@code 250ms}, {@code 5s}, {@code 2m}, {@code 1h},
+     * {@code 1d}), or a bare number of milliseconds.
+     */
+    private static Object duration(Object v, String where) {
+        Object s = scalar(v, where);
+        if (s instanceof Number n) return Duration.ofMillis(n.longValue());
+        String text = s.toString().trim().toLowerCase(Locale.ROOT);
+        try {
+            if (text.startsWith("p")) return Duration.parse(text.toUpperCase(Locale.ROOT));
+            int split = 0;
+            while (split < text.length() && (Character.isDigit(text.charAt(split)) || text.charAt(split) == '.')) split++;
+            BigDecimal amount = new BigDecimal(text.substring(0, split));
+            long millis = switch (text.substring(split).trim()) {
+                case "", "ms" -> amount.longValueExact();
+                case "s" -> amount.multiply(BigDecimal.valueOf(1_000)).longValue();
+                case "m" -> amount.multiply(BigDecimal.valueOf(60_000)).longValue();
+                case "h" -> amount.multiply(BigDecimal.valueOf(3_600_000)).longValue();
+                case "d" -> amount.multiply(BigDecimal.valueOf(86_400_000)).longValue();
+                default -> throw new NumberFormatException();
+            };
+            return Duration.ofMillis(millis);
+        } catch (DateTimeParseException | NumberFormatException | ArithmeticException e) {
+            throw mismatch(where, "a duration like 500ms, 5s, 2m, or 1h", v);
+        }
+    }
+
+    private static Object enumValue(Class<?> type, Object v, String where) {
+        String name = scalar(v, where).toString().trim().replace('-', '_').toUpperCase(Locale.ROOT);
+        for (Object constant : type.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) return constant;
+        }
+        throw mismatch(where, "one of " + Arrays.toString(type.getEnumConstants()), v);
+    }
+
+    private static IllegalStateException mismatch(String where, String expected, Object found) {
+        String shown = found instanceof Section ? "a section" : found instanceof List<?> ? "a list" : "'" + found + "'";
+        return new IllegalStateException("Config " + where + ": expected " + expected + " but found " + shown);
+    }
+
+    /**
+     * {@code maxPlayers} becomes {@code max-players}, {@code httpURLPath} becomes {@code http-url-path}.
+     */
+    static String kebabCase(String name) {
+        StringBuilder out = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                char prev = name.charAt(i - 1);
+                boolean nextLower = i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+                if (!Character.isUpperCase(prev) || nextLower) out.append('-');
+            }
+            out.append(Character.toLowerCase(c));
+        }
+        return out.toString();
+    }
+}
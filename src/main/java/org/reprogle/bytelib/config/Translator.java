@@ -1,10 +1,69 @@
 package org.reprogle.bytelib.config;
 
+import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import net.kyori.adventure.title.Title;
 
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
 public interface Translator {
     Component tr(String key, TagResolver... resolvers);
+
+    /**
+     * Renders {@code key} in {@code locale}, falling back to more general locales, then the server's language, for
+     * keys the locale's lang file lacks.
+     *
+     * @param locale The locale, or null for the server's language
+     */
+    Component tr(Locale locale, String key, TagResolver... resolvers);
+
+    /**
+     * Renders {@code key} in the audience's client locale, or the server's language if it has none.
+     */
+    Component tr(Audience audience, String key, TagResolver... resolvers);
+
+    /**
+     * Renders {@code key} for every recipient and hands each its component. Recipients are grouped by the text their
+     * locale resolves to and by their {@code perRecipient} values, each group is rendered once, and everyone in a group
+     * gets the same {@link Component} instance.
+     *
+     * @param perRecipient Values for unparsed placeholders that differ between recipients; keep them coarse (ex: a
+     *                     team name rather than a player name) or every recipient ends up in a group of their own
+     * @param sink         Receives each recipient with its component (ex: to send an action bar or update a sidebar)
+     * @param shared       Resolvers that are the same for every recipient
+     */
+    <A extends Audience> void renderEach(
+            String key,
+            Collection<? extends A> recipients,
+            Function<? super A, Map<String, String>> perRecipient,
+            BiConsumer<? super A, Component> sink,
+            TagResolver... shared
+    );
+
+    /**
+     * Sends {@code key} as a chat message to every recipient, rendering it once per locale and per distinct
+     * {@code perRecipient} values; see {@link #renderEach}.
+     */
+    default <A extends Audience> void broadcast(
+            String key,
+            Collection<? extends A> recipients,
+            Function<? super A, Map<String, String>> perRecipient,
+            TagResolver... shared
+    ) {
+        renderEach(key, recipients, perRecipient, Audience::sendMessage, shared);
+    }
+
+    /**
+     * Sends {@code key} as a chat message to every recipient, rendering it once per locale.
+     */
+    default void broadcast(String key, Collection<? extends Audience> recipients, TagResolver... shared) {
+        renderEach(key, recipients, a -> Map.of(), Audience::sendMessage, shared);
+    }
+
     Title title(String keyBase, Title.Times times, TagResolver... resolvers);
 }
@@ -0,0 +1,114 @@
+package org.reprogle.bytelib.config;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the directories YAML documents live in and reports which paths changed once edits have been quiet for the
+ * debounce period. Editors typically write a file several times per save (truncate, write, rename), so reacting to
+ * every event would parse half-written files.
+ * <p>
+ * Changes are reported on the watcher's own thread. A reported path is either a changed file or, after an event
+ * overflow, the directory itself.
+ */
+final class YamlFileWatcher implements AutoCloseable {
+    private final WatchService watch;
+    private final Duration debounce;
+    private final Consumer<Set<Path>> onChange;
+    private final ComponentLogger logger;
+    private final Set<Path> watched = ConcurrentHashMap.newKeySet();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    YamlFileWatcher(String name, Duration debounce, Consumer<Set<Path>> onChange, ComponentLogger logger) throws IOException {
+        this.watch = FileSystems.getDefault().newWatchService();
+        this.debounce = debounce;
+        this.onChange = onChange;
+        this.logger = logger;
+        this.thread = new Thread(this::run, "bytelib-yaml-watch-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Starts watching {@code dir} if it is not watched yet.
+     */
+    void watch(Path dir) {
+        Path abs = dir.toAbsolutePath().normalize();
+        if (!watched.add(abs)) return;
+        try {
+            abs.register(watch,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | ClosedWatchServiceException e) {
+            watched.remove(abs);
+            logger.warn("Cannot watch {} for YAML changes: {}", abs, e.toString());
+        }
+    }
+
+    private void run() {
+        Set<Path> changed = new HashSet<>();
+        long quietAt = 0;
+        while (running) {
+            WatchKey key;
+            try {
+                key = changed.isEmpty()
+                        ? watch.take()
+                        : watch.poll(Math.max(0, quietAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key != null) {
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed.add(dir);
+                    } else {
+                        changed.add(dir.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+                // Every new event restarts the quiet period
+                quietAt = System.nanoTime() + debounce.toNanos();
+                continue;
+            }
+
+            Set<Path> batch = changed;
+            changed = new HashSet<>();
+            try {
+                onChange.accept(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Handling YAML file changes failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watch.close();
+        } catch (IOException ignored) {
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,138 @@
+package org.reprogle.bytelib.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per YAML file, the content hashes of the file and its bundled defaults from the last time the file was
+ * fully loaded, updated, and (if needed) written back. When both still match, the file on disk is already the merged
+ * result, so the next load can read it alone and skip parsing the defaults, running the updater, and dumping the
+ * document to compare it.
+ * <p>
+ * Stored as a small binary file: a header, then one entry per document (absolute path, SHA-256 of the user file,
+ * SHA-256 of the bundled resource, version key). A missing, corrupt, or outdated index is simply ignored.
+ */
+final class YamlSnapshotIndex {
+    /**
+     * Enables the index when set to {@code true}.
+     */
+    static final String PROPERTY = "bytelib.config.cache";
+
+    private static final int MAGIC = 0x424C5943; // "BLYC"
+    // Bump whenever the load pipeline changes what ends up on disk
+    private static final int FORMAT = 1;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private record Entry(byte[] userHash, byte[] resourceHash, String versionKey) {
+        boolean matches(byte[] user, byte[] resource, String key) {
+            return Arrays.equals(userHash, user) && Arrays.equals(resourceHash, resource) && Objects.equals(versionKey, key);
+        }
+    }
+
+    private YamlSnapshotIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the index stored at {@code file}, or null if the cache is not enabled.
+     */
+    static YamlSnapshotIndex openIfEnabled(Path file) {
+        if (!Boolean.getBoolean(PROPERTY)) return null;
+        YamlSnapshotIndex index = new YamlSnapshotIndex(file);
+        index.read();
+        return index;
+    }
+
+    boolean matches(Path yaml, byte[] userContent, byte[] resourceContent, String versionKey) {
+        Entry entry = entries.get(key(yaml));
+        return entry != null && entry.matches(sha256(userContent), sha256(resourceContent), versionKey);
+    }
+
+    void record(Path yaml, byte[] userContent, byte[] resourceContent, String versionKey) {
+        Entry next = new Entry(sha256(userContent), sha256(resourceContent), versionKey);
+        Entry previous = entries.put(key(yaml), next);
+        if (previous == null || !previous.matches(next.userHash(), next.resourceHash(), versionKey)) dirty = true;
+    }
+
+    /**
+     * Writes the index if anything changed since it was read. Written via a temp file and atomic move.
+     */
+    void saveIfDirty() throws IOException {
+        if (!dirty) return;
+        dirty = false;
+
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                Map<String, Entry> snapshot = Map.copyOf(entries);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.write(e.getValue().userHash());
+                    out.write(e.getValue().resourceHash());
+                    out.writeBoolean(e.getValue().versionKey() != null);
+                    if (e.getValue().versionKey() != null) out.writeUTF(e.getValue().versionKey());
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                byte[] user = in.readNBytes(32);
+                byte[] resource = in.readNBytes(32);
+                String versionKey = in.readBoolean() ? in.readUTF() : null;
+                entries.put(path, new Entry(user, resource, versionKey));
+            }
+        } catch (NoSuchFileException ignored) {
+            // First start with the cache enabled
+        } catch (IOException e) {
+            // Corrupt or truncated; everything takes the full path and the index is rewritten
+            entries.clear();
+            dirty = true;
+        }
+    }
+
+    private static String key(Path yaml) {
+        return yaml.toAbsolutePath().normalize().toString();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
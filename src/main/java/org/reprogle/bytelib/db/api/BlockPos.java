@@ -0,0 +1,130 @@
+package org.reprogle.bytelib.db.api;
+
+/**
+ * A block coordinate that packs into a single 64-bit key, so a location can be stored and indexed as one
+ * {@code INTEGER} column instead of three.
+ * <p>
+ * Two encodings are available. {@link #pack()} sorts by x, then z, then y, so a slab of constant x is one contiguous
+ * key range. {@link #packMorton()} interleaves the bits of x and z (a Z-order curve), which keeps blocks that are
+ * close on the map close in the index; every chunk column is one contiguous range, see {@link #mortonChunkRange}.
+ * Both encodings sort the same way as the signed keys SQLite compares, so {@code BETWEEN} on them uses the index.
+ * <p>
+ * x and z must fit in 26 bits ({@value #MIN_XZ} to {@value #MAX_XZ}, beyond the vanilla world border) and y in 12
+ * bits ({@value #MIN_Y} to {@value #MAX_Y}).
+ */
+public record BlockPos(int x, int y, int z) {
+    public static final int MIN_XZ = -(1 << 25);
+    public static final int MAX_XZ = (1 << 25) - 1;
+    public static final int MIN_Y = -(1 << 11);
+    public static final int MAX_Y = (1 << 11) - 1;
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    public BlockPos {
+        if (x < MIN_XZ || x > MAX_XZ) throw new IllegalArgumentException("x out of range: " + x);
+        if (z < MIN_XZ || z > MAX_XZ) throw new IllegalArgumentException("z out of range: " + z);
+        if (y < MIN_Y || y > MAX_Y) throw new IllegalArgumentException("y out of range: " + y);
+    }
+
+    // ----------------------
+    // Linear (x, z, y) order
+    // ----------------------
+
+    /**
+     * Packs as {@code x:26 | z:26 | y:12}. x stays signed in the top bits while z and y are offset to unsigned, so
+     * keys compare exactly like the (x, z, y) tuple.
+     */
+    public long pack() {
+        return pack(x, y, z);
+    }
+
+    /**
+     * Same as {@link #pack()} without creating a {@code BlockPos}, for hot lookups. Coordinates are not range-checked.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x << (XZ_BITS + Y_BITS))
+                | ((long) (z - MIN_XZ) << Y_BITS)
+                | (y - MIN_Y);
+    }
+
+    public static BlockPos unpack(long key) {
+        int x = (int) (key >> (XZ_BITS + Y_BITS));
+        int z = (int) ((key >>> Y_BITS) & XZ_MASK) + MIN_XZ;
+        int y = (int) (key & Y_MASK) + MIN_Y;
+        return new BlockPos(x, y, z);
+    }
+
+    // ----------------------
+    // Morton (Z-order) on x/z
+    // ----------------------
+
+    /**
+     * Packs as {@code morton(x, z):52 | y:12}, with the sign bit flipped so that SQLite's signed comparison matches
+     * the curve's unsigned order.
+     */
+    public long packMorton() {
+        long xz = interleave(x - MIN_XZ) | (interleave(z - MIN_XZ) << 1);
+        return ((xz << Y_BITS) | (y - MIN_Y)) ^ Long.MIN_VALUE;
+    }
+
+    public static BlockPos unpackMorton(long key) {
+        long k = key ^ Long.MIN_VALUE;
+        long xz = k >>> Y_BITS;
+        int x = (int) compact(xz) + MIN_XZ;
+        int z = (int) compact(xz >>> 1) + MIN_XZ;
+        int y = (int) (k & Y_MASK) + MIN_Y;
+        return new BlockPos(x, y, z);
+    }
+
+    /**
+     * Inclusive Morton key range covering every block of one chunk column, for {@code key BETWEEN ? AND ?}.
+     *
+     * @return {@code [min, max]}
+     */
+    public static long[] mortonChunkRange(int chunkX, int chunkZ) {
+        long min = new BlockPos(chunkX << 4, MIN_Y, chunkZ << 4).packMorton();
+        long max = new BlockPos((chunkX << 4) + 15, MAX_Y, (chunkZ << 4) + 15).packMorton();
+        return new long[]{min, max};
+    }
+
+    /**
+     * Spreads the low 26 bits of {@code v} to the even bit positions.
+     */
+    private static long interleave(long v) {
+        v &= XZ_MASK;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    private static long compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return v & XZ_MASK;
+    }
+
+    public int chunkX() {
+        return x >> 4;
+    }
+
+    public int chunkZ() {
+        return z >> 4;
+    }
+
+    public long distanceSquared(BlockPos other) {
+        long dx = (long) x - other.x;
+        long dy = (long) y - other.y;
+        long dz = (long) z - other.z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,20 @@
+package org.reprogle.bytelib.db.api;
+
+/**
+ * A committed row change, as reported by SQLite itself (so it includes trigger side effects and foreign-key
+ * cascades). When a single transaction changes more rows than ByteLib keeps individually, one summary change per
+ * table and type is reported instead, with {@link #rowId()} set to {@link #MANY_ROWS}.
+ */
+public record DataChange(Type type, String table, long rowId) {
+    public static final long MANY_ROWS = -1L;
+
+    public boolean isSummary() {
+        return rowId == MANY_ROWS;
+    }
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+}
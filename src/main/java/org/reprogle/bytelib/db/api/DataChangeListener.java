@@ -0,0 +1,12 @@
+package org.reprogle.bytelib.db.api;
+
+import java.util.List;
+
+/**
+ * Receives the changes of each committed write, once per commit. Called on the database thread right after the commit,
+ * so implementations should be quick and hand anything heavy (or anything touching the world) to another thread.
+ */
+@FunctionalInterface
+public interface DataChangeListener {
+    void onCommit(List<DataChange> changes);
+}
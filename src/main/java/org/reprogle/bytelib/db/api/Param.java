@@ -40,4 +40,12 @@ public record Param<T>(SqlType<T> type, T value) {
     public static Param<Boolean> bool(Boolean v) {
         return new Param<>(SqlType.BOOLEAN, v);
     }
+
+    public static Param<BlockPos> blockPos(BlockPos v) {
+        return new Param<>(SqlType.BLOCK_POS, v);
+    }
+
+    public static Param<BlockPos> blockPosMorton(BlockPos v) {
+        return new Param<>(SqlType.BLOCK_POS_MORTON, v);
+    }
 }
@@ -92,4 +92,38 @@ public interface SqlType<T> {
             return rs.getInt(column) == 1;
         }
     };
+
+    /**
+     * A {@link BlockPos} stored as one {@code INTEGER} in (x, z, y) order. See {@link BlockPos#pack()}.
+     */
+    SqlType<BlockPos> BLOCK_POS = new SqlType<>() {
+        public void bind(PreparedStatement ps, int index, BlockPos value) throws SQLException {
+            if (value == null)
+                ps.setNull(index, java.sql.Types.BIGINT);
+            else
+                ps.setLong(index, value.pack());
+        }
+
+        public BlockPos read(ResultSet rs, String column) throws SQLException {
+            long v = rs.getLong(column);
+            return rs.wasNull() ? null : BlockPos.unpack(v);
+        }
+    };
+
+    /**
+     * A {@link BlockPos} stored as one {@code INTEGER} in Morton (Z-order) on x/z. See {@link BlockPos#packMorton()}.
+     */
+    SqlType<BlockPos> BLOCK_POS_MORTON = new SqlType<>() {
+        public void bind(PreparedStatement ps, int index, BlockPos value) throws SQLException {
+            if (value == null)
+                ps.setNull(index, java.sql.Types.BIGINT);
+            else
+                ps.setLong(index, value.packMorton());
+        }
+
+        public BlockPos read(ResultSet rs, String column) throws SQLException {
+            long v = rs.getLong(column);
+            return rs.wasNull() ? null : BlockPos.unpackMorton(v);
+        }
+    };
 }
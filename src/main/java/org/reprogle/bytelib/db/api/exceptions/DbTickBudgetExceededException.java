@@ -0,0 +1,7 @@
+package org.reprogle.bytelib.db.api.exceptions;
+
+public final class DbTickBudgetExceededException extends RuntimeException {
+    public DbTickBudgetExceededException(String message) {
+        super(message);
+    }
+}
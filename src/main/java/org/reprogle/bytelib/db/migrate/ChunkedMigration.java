@@ -0,0 +1,22 @@
+package org.reprogle.bytelib.db.migrate;
+
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+/**
+ * A data migration that works through a table in keyset order, a bounded number of rows per transaction.
+ * <p>
+ * A typical implementation selects rows by integer key greater than {@code after} ({@code rowid} works for most
+ * tables), ordered by that key and limited to {@code limit}, processes them, and returns the last key it handled.
+ */
+@FunctionalInterface
+public interface ChunkedMigration {
+    /**
+     * Processes the next chunk. Runs inside its own transaction; the returned cursor is committed with it.
+     *
+     * @param tx    The transaction for this chunk
+     * @param after The key returned by the previous chunk, or null for the first chunk
+     * @param limit Maximum number of rows to process
+     * @return The key of the last row processed, or null once there is nothing left to do
+     */
+    Long applyChunk(SqliteDatabase.Tx tx, Long after, int limit) throws Exception;
+}
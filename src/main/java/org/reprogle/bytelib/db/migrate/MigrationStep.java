@@ -1,4 +1,29 @@
 package org.reprogle.bytelib.db.migrate;
 
-public record MigrationStep(int targetVersion, Migration migration) {
+/**
+ * One step towards {@code targetVersion}. Plain steps run inside a single transaction. Chunked steps run
+ * {@code batchSize} rows per transaction, remember their progress across restarts, and only bump
+ * {@code user_version} once every chunk has been applied.
+ */
+public record MigrationStep(int targetVersion, Migration migration, ChunkedMigration chunked, int batchSize) {
+    public MigrationStep {
+        if ((migration == null) == (chunked == null)) {
+            throw new IllegalArgumentException("A MigrationStep needs exactly one of migration or chunked");
+        }
+        if (chunked != null && batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be > 0 for chunked steps");
+        }
+    }
+
+    public MigrationStep(int targetVersion, Migration migration) {
+        this(targetVersion, migration, null, 0);
+    }
+
+    public static MigrationStep chunked(int targetVersion, int batchSize, ChunkedMigration migration) {
+        return new MigrationStep(targetVersion, null, migration, batchSize);
+    }
+
+    public boolean isChunked() {
+        return chunked != null;
+    }
 }
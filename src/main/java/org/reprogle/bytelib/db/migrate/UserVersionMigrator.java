@@ -5,8 +5,11 @@ import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class UserVersionMigrator {
+    private static final String PROGRESS_TABLE = "bytelib_migration_progress";
+
     private final List<MigrationStep> steps;
     private final String anchorTable;
 
@@ -17,34 +20,117 @@ public final class UserVersionMigrator {
                 .toList();
     }
 
+    /**
+     * Applies every pending step. Consecutive plain steps share one transaction; chunked steps commit one chunk at a
+     * time and pick up where they left off if the server stopped mid-way.
+     */
     public void migrate(SqliteDatabase db) {
-        db.transaction(tx -> {
+        int ver = applyPlainSteps(db, true);
+        while (ver >= 0) {
+            MigrationStep next = nextPending(ver);
+            if (next == null) return;
+
+            if (next.isChunked()) {
+                runChunked(db, next);
+            }
+            ver = applyPlainSteps(db, false);
+        }
+    }
+
+    /**
+     * Runs {@link #migrate} on a background thread. Each chunk is a separate call into the database, so the plugin's
+     * own queries interleave with a long backfill instead of waiting for it. Schema changes the plugin depends on
+     * should be applied with {@link #migrate} first; only defer steps the plugin can serve traffic without.
+     */
+    public CompletableFuture<Void> migrateAsync(SqliteDatabase db) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            try {
+                migrate(db);
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, "bytelib-migrate-" + anchorTable);
+        t.setDaemon(true);
+        t.start();
+        return result;
+    }
+
+    /**
+     * Applies plain steps up to (not including) the next chunked step, in one transaction.
+     *
+     * @return the resulting user_version, or -1 if nothing is left to do
+     */
+    private int applyPlainSteps(SqliteDatabase db, boolean first) {
+        Integer result = db.transaction(tx -> {
             Integer current = tx.queryOne("PRAGMA user_version;", row -> row.i32("user_version"));
             int ver = current == null ? 0 : current;
 
-            // Catches null as well
-            boolean hasAnchor = Boolean.TRUE.equals(tx.queryOne("""
-                    SELECT 1
-                    FROM sqlite_master
-                    WHERE type='table' AND name = ?
-                    LIMIT 1;
-                    """, row -> true, Param.text(anchorTable)));
+            if (first) {
+                // Catches null as well
+                boolean hasAnchor = Boolean.TRUE.equals(tx.queryOne("""
+                        SELECT 1
+                        FROM sqlite_master
+                        WHERE type='table' AND name = ?
+                        LIMIT 1;
+                        """, row -> true, Param.text(anchorTable)));
 
-            int latest = steps.isEmpty() ? 0 : steps.getLast().targetVersion();
+                int latest = steps.isEmpty() ? 0 : steps.getLast().targetVersion();
 
-            if (ver == 0 && !hasAnchor) {
-                tx.execute("PRAGMA user_version = " + latest + ";");
-                return null;
+                if (ver == 0 && !hasAnchor) {
+                    tx.execute("PRAGMA user_version = " + latest + ";");
+                    return -1;
+                }
             }
 
             for (MigrationStep step : steps) {
-                if (step.targetVersion() > ver) {
-                    step.migration().apply(tx);
-                    tx.execute("PRAGMA user_version = " + step.targetVersion() + ";");
-                    ver = step.targetVersion();
-                }
+                if (step.targetVersion() <= ver) continue;
+                if (step.isChunked()) return ver;
+
+                step.migration().apply(tx);
+                tx.execute("PRAGMA user_version = " + step.targetVersion() + ";");
+                ver = step.targetVersion();
             }
-            return null;
+            return -1;
         });
+        return result == null ? -1 : result;
+    }
+
+    private MigrationStep nextPending(int ver) {
+        for (MigrationStep step : steps) {
+            if (step.targetVersion() > ver) return step;
+        }
+        return null;
+    }
+
+    private void runChunked(SqliteDatabase db, MigrationStep step) {
+        db.execute("CREATE TABLE IF NOT EXISTS " + PROGRESS_TABLE + " (" +
+                "target_version INTEGER PRIMARY KEY, " +
+                "cursor INTEGER, " +
+                "chunks INTEGER NOT NULL DEFAULT 0)");
+
+        boolean done = false;
+        while (!done) {
+            Boolean finished = db.transaction(tx -> {
+                Long after = tx.queryOne(
+                        "SELECT cursor FROM " + PROGRESS_TABLE + " WHERE target_version = ?;",
+                        row -> row.i64("cursor"),
+                        Param.i32(step.targetVersion()));
+
+                Long next = step.chunked().applyChunk(tx, after, step.batchSize());
+                if (next == null) {
+                    tx.execute("DELETE FROM " + PROGRESS_TABLE + " WHERE target_version = ?;", Param.i32(step.targetVersion()));
+                    tx.execute("PRAGMA user_version = " + step.targetVersion() + ";");
+                    return true;
+                }
+
+                tx.execute("INSERT INTO " + PROGRESS_TABLE + " (target_version, cursor, chunks) VALUES (?, ?, 1) " +
+                                "ON CONFLICT(target_version) DO UPDATE SET cursor = excluded.cursor, chunks = chunks + 1;",
+                        Param.i32(step.targetVersion()), Param.i64(next));
+                return false;
+            });
+            done = Boolean.TRUE.equals(finished);
+        }
     }
 }
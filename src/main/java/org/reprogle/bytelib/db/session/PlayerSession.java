@@ -0,0 +1,146 @@
+package org.reprogle.bytelib.db.session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * The in-memory data of one online player, loaded before they joined. Reads and writes never touch the database;
+ * fields that were {@link #set} are written back by {@link PlayerSessions} on autosave and on quit.
+ */
+public final class PlayerSession {
+    private final UUID playerId;
+    private final Map<SessionField<?>, Slot> slots;
+    // Connections of this player that joined and have not quit, and logins that passed pre-login but have not joined.
+    // A player reconnecting before their old connection quit briefly has one of each, sharing this session.
+    private int connections;
+    private int pendingLogins;
+    private long lastLoginNanos = System.nanoTime();
+
+    PlayerSession(UUID playerId, Map<SessionField<?>, Object> values) {
+        this.playerId = playerId;
+        this.slots = new HashMap<>(values.size() * 2);
+        values.forEach((field, value) -> slots.put(field, new Slot(value)));
+    }
+
+    public UUID playerId() {
+        return playerId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(SessionField<T> field) {
+        return (T) slot(field).value;
+    }
+
+    public synchronized <T> void set(SessionField<T> field, T value) {
+        Slot slot = slot(field);
+        slot.value = value;
+        slot.dirty = true;
+        slot.version++;
+    }
+
+    /**
+     * Replaces the value with {@code fn} applied to it, atomically with respect to other session access.
+     *
+     * @return The new value
+     */
+    public synchronized <T> T update(SessionField<T> field, UnaryOperator<T> fn) {
+        Objects.requireNonNull(fn, "fn");
+        T next = fn.apply(get(field));
+        set(field, next);
+        return next;
+    }
+
+    public synchronized boolean isDirty() {
+        for (Slot slot : slots.values()) {
+            if (slot.dirty) return true;
+        }
+        return false;
+    }
+
+    synchronized void loginStarted() {
+        pendingLogins++;
+        lastLoginNanos = System.nanoTime();
+    }
+
+    /**
+     * @return Whether no connection or login holds the session any more
+     */
+    synchronized boolean loginAborted() {
+        if (pendingLogins > 0) pendingLogins--;
+        return idle();
+    }
+
+    synchronized void joined() {
+        if (pendingLogins > 0) pendingLogins--;
+        connections++;
+    }
+
+    /**
+     * @return Whether no connection or login holds the session any more
+     */
+    synchronized boolean quit() {
+        if (connections > 0) connections--;
+        return idle();
+    }
+
+    /**
+     * Whether the session only exists for logins that never joined, the newest of them before {@code cutoffNanos}.
+     */
+    synchronized boolean abandonedBefore(long cutoffNanos) {
+        return connections == 0 && lastLoginNanos - cutoffNanos < 0;
+    }
+
+    private boolean idle() {
+        return connections == 0 && pendingLogins == 0;
+    }
+
+    /**
+     * Captures the dirty fields for a flush. They stay dirty until {@link #markClean} confirms the write.
+     */
+    synchronized List<Pending<?>> dirtySnapshot() {
+        List<Pending<?>> out = new ArrayList<>();
+        slots.forEach((field, slot) -> {
+            if (slot.dirty) out.add(pending(field, slot));
+        });
+        return out;
+    }
+
+    /**
+     * Clears the dirty flag of every flushed field that was not changed again while the flush ran.
+     */
+    synchronized void markClean(List<Pending<?>> flushed) {
+        for (Pending<?> p : flushed) {
+            Slot slot = slots.get(p.field());
+            if (slot != null && slot.version == p.version()) slot.dirty = false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Pending<T> pending(SessionField<T> field, Slot slot) {
+        return new Pending<>(field, (T) slot.value, slot.version);
+    }
+
+    private Slot slot(SessionField<?> field) {
+        Slot slot = slots.get(Objects.requireNonNull(field, "field"));
+        if (slot == null) throw new IllegalArgumentException("Session field " + field.name() + " is not registered");
+        return slot;
+    }
+
+    private static final class Slot {
+        Object value;
+        boolean dirty;
+        long version;
+
+        Slot(Object value) {
+            this.value = value;
+        }
+    }
+
+    record Pending<T>(SessionField<T> field, T value, long version) {
+    }
+}
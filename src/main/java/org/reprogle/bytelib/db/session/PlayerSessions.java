@@ -0,0 +1,291 @@
+package org.reprogle.bytelib.db.session;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Holds a {@link PlayerSession} for every online player.
+ * <p>
+ * Every bound {@link SessionField} is loaded in one transaction during {@link AsyncPlayerPreLoginEvent}, off the main
+ * thread, so event handlers never block on per-player reads. If loading fails the login is denied rather than letting
+ * the player in without their data. Changed fields are written back in one batched transaction per autosave, per quit,
+ * and once more when the plugin disables.
+ * <p>
+ * A player has at most one session at a time. Logging in while the previous connection is still online, or before
+ * its quit flush has been written, adopts that session instead of loading a new one, so the newest values are never
+ * replaced by older ones from the database. The session is only released once every connection holding it has quit.
+ */
+@Singleton
+public final class PlayerSessions implements Listener {
+    private final JavaPlugin plugin;
+    private final SqliteDatabase db;
+    private final Set<SessionField<?>> fields;
+    private final SessionConfig config;
+    private final ComponentLogger logger;
+
+    private final ConcurrentHashMap<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    // Sessions of players who already left whose changes are not written yet; retried with the next flush until they
+    // are, and adopted again if the player logs back in first. At most one per player, so retries never race.
+    private final ConcurrentHashMap<UUID, PlayerSession> departed = new ConcurrentHashMap<>();
+    private BukkitTask autosaveTask;
+
+    @Inject
+    public PlayerSessions(JavaPlugin plugin, SqliteDatabase db, Set<SessionField<?>> fields, SessionConfig config,
+                          ComponentLogger logger) {
+        this.plugin = plugin;
+        this.db = db;
+        this.fields = fields;
+        this.config = config;
+        this.logger = logger;
+    }
+
+    // ----------------------
+    // Access
+    // ----------------------
+
+    /**
+     * Returns the session of an online (or currently joining) player, or null if they have none.
+     */
+    public PlayerSession session(UUID playerId) {
+        return sessions.get(playerId);
+    }
+
+    public PlayerSession session(Player player) {
+        return session(player.getUniqueId());
+    }
+
+    public <T> T get(Player player, SessionField<T> field) {
+        return require(player).get(field);
+    }
+
+    public <T> void set(Player player, SessionField<T> field, T value) {
+        require(player).set(field, value);
+    }
+
+    private PlayerSession require(Player player) {
+        PlayerSession session = session(player);
+        if (session == null) throw new IllegalStateException("No session loaded for " + player.getUniqueId());
+        return session;
+    }
+
+    // ----------------------
+    // Player lifecycle
+    // ----------------------
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        UUID playerId = event.getUniqueId();
+        try {
+            acquire(playerId).loginStarted();
+        } catch (RuntimeException e) {
+            logger.error("Loading session data for {} failed; denying login", playerId, e);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, Component.text(config.loadFailedMessage()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        // Another plugin denied the login after the session was loaded
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        PlayerSession session = sessions.get(event.getUniqueId());
+        if (session != null && session.loginAborted()) release(session);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        PlayerSession session = session(event.getPlayer());
+        if (session != null) session.joined();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        PlayerSession session = session(event.getPlayer());
+        // A reconnect that already logged in keeps the session; only the last connection releases it
+        if (session != null && session.quit()) release(session);
+    }
+
+    /**
+     * Returns the session a login should use: the live one if the player is still online, the departed one if its
+     * changes are not written yet, or a freshly loaded one.
+     */
+    private PlayerSession acquire(UUID playerId) {
+        PlayerSession held = sessions.computeIfAbsent(playerId, departed::remove);
+        if (held != null) return held;
+
+        PlayerSession loaded = load(playerId);
+        // Another login for the same player may have won the race while this one was loading
+        PlayerSession raced = sessions.putIfAbsent(playerId, loaded);
+        return raced == null ? loaded : raced;
+    }
+
+    /**
+     * Removes a session no connection holds any more and writes its remaining changes.
+     */
+    private void release(PlayerSession session) {
+        boolean[] handedOff = new boolean[1];
+        // Moved to departed while the key is locked, so a concurrent acquire sees it in one map or the other
+        sessions.computeIfPresent(session.playerId(), (id, current) -> {
+            if (current != session) return current;
+            if (session.isDirty()) {
+                departed.put(id, session);
+                handedOff[0] = true;
+            }
+            return null;
+        });
+        if (handedOff[0]) flushAsync(List.of(session));
+    }
+
+    private PlayerSession load(UUID playerId) {
+        Map<SessionField<?>, Object> values = db.transaction(tx -> {
+            Map<SessionField<?>, Object> out = new HashMap<>(fields.size() * 2);
+            for (SessionField<?> field : fields) {
+                out.put(field, field.load(tx, playerId));
+            }
+            return out;
+        });
+        return new PlayerSession(playerId, values);
+    }
+
+    // ----------------------
+    // Flushing
+    // ----------------------
+
+    /**
+     * Writes every dirty field of the given sessions in a single transaction.
+     */
+    public CompletableFuture<Void> flushAsync(Collection<PlayerSession> toFlush) {
+        Map<PlayerSession, List<PlayerSession.Pending<?>>> batch = new HashMap<>();
+        for (PlayerSession session : toFlush) {
+            List<PlayerSession.Pending<?>> dirty = session.dirtySnapshot();
+            if (!dirty.isEmpty()) batch.put(session, dirty);
+        }
+        if (batch.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> flush = db.<Void>transactionAsync(tx -> {
+            for (Map.Entry<PlayerSession, List<PlayerSession.Pending<?>>> entry : batch.entrySet()) {
+                UUID playerId = entry.getKey().playerId();
+                for (PlayerSession.Pending<?> pending : entry.getValue()) {
+                    save(tx, playerId, pending);
+                }
+            }
+            return null;
+        }).whenComplete((ignored, err) -> {
+            if (err != null) {
+                // Fields stay dirty and are retried by the next autosave or flush, or by the session's next login
+                logger.warn("Flushing {} player session(s) failed", batch.size(), err);
+                return;
+            }
+            batch.forEach(PlayerSession::markClean);
+            for (PlayerSession session : batch.keySet()) {
+                if (!session.isDirty()) departed.remove(session.playerId(), session);
+            }
+        });
+
+        inFlight.add(flush);
+        flush.whenComplete((ignored, err) -> inFlight.remove(flush));
+        return flush;
+    }
+
+    public CompletableFuture<Void> flushAll() {
+        List<PlayerSession> all = new ArrayList<>(sessions.values());
+        all.addAll(departed.values());
+        return flushAsync(all);
+    }
+
+    private static <T> void save(SqliteDatabase.Tx tx, UUID playerId, PlayerSession.Pending<T> pending) throws Exception {
+        pending.field().save(tx, playerId, pending.value());
+    }
+
+    private void autosave() {
+        sweepStale();
+        List<PlayerSession> dirty = new ArrayList<>();
+        for (PlayerSession session : sessions.values()) {
+            if (session.isDirty()) dirty.add(session);
+        }
+        for (PlayerSession session : departed.values()) {
+            if (session.isDirty()) dirty.add(session);
+        }
+        if (!dirty.isEmpty()) flushAsync(dirty).exceptionally(err -> null).join();
+    }
+
+    /**
+     * Releases sessions whose player never made it past login.
+     */
+    private void sweepStale() {
+        long cutoff = System.nanoTime() - config.staleAfter().toNanos();
+        for (PlayerSession session : sessions.values()) {
+            if (session.abandonedBefore(cutoff)) release(session);
+        }
+    }
+
+    // ----------------------
+    // Start / stop
+    // ----------------------
+
+    void start() {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+
+        long intervalMs = config.autosaveInterval() == null ? 0 : config.autosaveInterval().toMillis();
+        if (intervalMs > 0) {
+            long periodTicks = Math.max(1, intervalMs / 50);
+            autosaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::autosave, periodTicks, periodTicks);
+        }
+    }
+
+    /**
+     * Stops autosave, flushes every session, and waits up to {@link SessionConfig#drainTimeout()} for all pending
+     * flushes (including earlier quit flushes) to finish.
+     */
+    void shutdown() {
+        if (autosaveTask != null) {
+            autosaveTask.cancel();
+            autosaveTask = null;
+        }
+        HandlerList.unregisterAll(this);
+
+        flushAll();
+        CompletableFuture<?>[] pending = inFlight.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(pending).get(config.drainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.error("Timed out after {}ms waiting for {} session flush(es); unsaved changes may be lost",
+                    config.drainTimeout().toMillis(), inFlight.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Individual failures were already logged by the flush itself
+        }
+        sessions.clear();
+        departed.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package org.reprogle.bytelib.db.session;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link PlayerSessions}.
+ *
+ * @param autosaveInterval  How often dirty sessions are written back. Zero or negative disables autosave, leaving
+ *                          quit and shutdown as the only flushes
+ * @param staleAfter        How long a loaded session may wait for its player to join before it is dropped (the login
+ *                          was denied later on, or the connection dropped)
+ * @param drainTimeout      How long plugin disable waits for pending flushes
+ * @param loadFailedMessage Kick message shown when a player's data could not be loaded
+ */
+public record SessionConfig(
+        Duration autosaveInterval,
+        Duration staleAfter,
+        Duration drainTimeout,
+        String loadFailedMessage
+) {
+    public static SessionConfig defaults() {
+        return new SessionConfig(
+                Duration.ofMinutes(5),
+                Duration.ofMinutes(1),
+                Duration.ofSeconds(10),
+                "Your player data could not be loaded. Please try again in a moment."
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package org.reprogle.bytelib.db.session;
+
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.UUID;
+
+/**
+ * One piece of per-player data held in a {@link PlayerSession}. Bind implementations with
+ * {@link SessionModule#fields(com.google.inject.Binder)}; every bound field is loaded for every player before they join.
+ * <p>
+ * Fields are compared by identity, so bind each as a singleton and keep a reference (or inject it) to read it back.
+ *
+ * @param <T> The in-memory value type
+ */
+public interface SessionField<T> {
+    /**
+     * A short name used in log messages.
+     */
+    String name();
+
+    /**
+     * Reads the player's value. Runs off the main thread during pre-login, in a transaction shared with every other
+     * field.
+     */
+    T load(SqliteDatabase.Tx tx, UUID player) throws Exception;
+
+    /**
+     * Writes the player's value back. Runs on the DB thread in a transaction shared with other dirty fields and
+     * players. A value may be saved more than once, so this should be an upsert.
+     */
+    void save(SqliteDatabase.Tx tx, UUID player, T value) throws Exception;
+}
@@ -0,0 +1,32 @@
+package org.reprogle.bytelib.db.session;
+
+import com.google.inject.Inject;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+import org.reprogle.bytelib.db.sqlite.SqliteLifecycle;
+
+import java.util.Set;
+
+public final class SessionLifecycle implements PluginLifecycle {
+    private final PlayerSessions sessions;
+
+    @Inject
+    public SessionLifecycle(PlayerSessions sessions) {
+        this.sessions = sessions;
+    }
+
+    // The final flush must be written before the database closes
+    @Override
+    public Set<Class<? extends PluginLifecycle>> dependsOn() {
+        return Set.of(SqliteLifecycle.class);
+    }
+
+    @Override
+    public void onEnable() {
+        sessions.start();
+    }
+
+    @Override
+    public void onDisable() {
+        sessions.shutdown();
+    }
+}
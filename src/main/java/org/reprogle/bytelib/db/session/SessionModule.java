@@ -0,0 +1,49 @@
+package org.reprogle.bytelib.db.session;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Binder;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+import java.util.Objects;
+
+/**
+ * Enables {@link PlayerSessions}. Requires a bound {@link org.reprogle.bytelib.db.sqlite.SqliteDatabase}, e.g. from
+ * {@link org.reprogle.bytelib.db.sqlite.SqliteModule}. Contribute fields from your own module:
+ * <pre>{@code
+ * SessionModule.fields(binder()).addBinding().to(CoinsField.class);
+ * }</pre>
+ */
+public final class SessionModule extends AbstractModule {
+    private final SessionConfig config;
+
+    public SessionModule() {
+        this(SessionConfig.defaults());
+    }
+
+    public SessionModule(SessionConfig config) {
+        this.config = Objects.requireNonNull(config, "config");
+    }
+
+    /**
+     * The multibinder for {@link SessionField}s.
+     */
+    public static Multibinder<SessionField<?>> fields(Binder binder) {
+        return Multibinder.newSetBinder(binder, new TypeLiteral<SessionField<?>>() {
+        });
+    }
+
+    @Override
+    protected void configure() {
+        // Allow plugins to contribute session fields
+        fields(binder());
+
+        bind(SessionConfig.class).toInstance(config);
+        bind(PlayerSessions.class);
+
+        Multibinder.newSetBinder(binder(), PluginLifecycle.class)
+                .addBinding()
+                .to(SessionLifecycle.class);
+    }
+}
@@ -0,0 +1,254 @@
+package org.reprogle.bytelib.db.spatial;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.reprogle.bytelib.db.api.BlockPos;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps location-keyed rows for every loaded chunk in memory, so main-thread checks like "is this block special?"
+ * never touch the database.
+ * <p>
+ * When a chunk loads, its rows are fetched on the DB thread through the {@link ChunkStore} and installed on the main
+ * thread; when it unloads they are dropped. Lookups are two primitive-keyed hash probes and do not allocate.
+ * Writes update memory immediately and are queued to the database in call order.
+ * <p>
+ * Everything except the DB work happens on the main thread; none of the methods here may be called from elsewhere.
+ * A lookup in a chunk whose rows are still loading returns null; use {@link #isReady} where that distinction matters.
+ *
+ * @param <V> The value held per block
+ */
+public final class ChunkPrefetchCache<V> implements Listener, AutoCloseable {
+    private final JavaPlugin plugin;
+    private final SqliteDatabase db;
+    private final ChunkStore<V> store;
+
+    private final Map<UUID, LongObjectMap<ChunkData<V>>> worlds = new HashMap<>();
+    private boolean open;
+
+    public ChunkPrefetchCache(JavaPlugin plugin, SqliteDatabase db, ChunkStore<V> store) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.db = Objects.requireNonNull(db, "db");
+        this.store = Objects.requireNonNull(store, "store");
+    }
+
+    /**
+     * Registers the chunk listeners and starts loading every chunk that is already loaded. Call from
+     * {@code onEnable}.
+     */
+    public void start() {
+        requireMainThread();
+        if (open) return;
+        open = true;
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                request(world.getUID(), chunk.getX(), chunk.getZ());
+            }
+        }
+    }
+
+    // ----------------------
+    // Lookups
+    // ----------------------
+
+    public V get(Block block) {
+        return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public V get(World world, BlockPos pos) {
+        return get(world, pos.x(), pos.y(), pos.z());
+    }
+
+    /**
+     * Returns the value stored at the block, or null if there is none or its chunk has not finished loading.
+     */
+    public V get(World world, int x, int y, int z) {
+        ChunkData<V> chunk = chunk(world.getUID(), x >> 4, z >> 4);
+        if (chunk == null || !chunk.ready) return null;
+        return chunk.blocks.get(BlockPos.pack(x, y, z));
+    }
+
+    /**
+     * Whether the rows of the chunk column are in memory, i.e. whether a null from {@link #get} means "no entry".
+     */
+    public boolean isReady(World world, int chunkX, int chunkZ) {
+        ChunkData<V> chunk = chunk(world.getUID(), chunkX, chunkZ);
+        return chunk != null && chunk.ready;
+    }
+
+    // ----------------------
+    // Writes
+    // ----------------------
+
+    /**
+     * Stores {@code value} at {@code pos}. Memory is updated now; the returned future completes once the row is
+     * written.
+     */
+    public CompletableFuture<Void> put(World world, BlockPos pos, V value) {
+        Objects.requireNonNull(pos, "pos");
+        Objects.requireNonNull(value, "value");
+        requireMainThread();
+        UUID uid = world.getUID();
+
+        ChunkData<V> chunk = chunk(uid, pos.chunkX(), pos.chunkZ());
+        if (chunk != null) {
+            long key = pos.pack();
+            chunk.blocks.put(key, value);
+            chunk.touch(key);
+        }
+        return write(tx -> store.save(tx, uid, pos, value));
+    }
+
+    public CompletableFuture<Void> remove(World world, BlockPos pos) {
+        Objects.requireNonNull(pos, "pos");
+        requireMainThread();
+        UUID uid = world.getUID();
+
+        ChunkData<V> chunk = chunk(uid, pos.chunkX(), pos.chunkZ());
+        if (chunk != null) {
+            long key = pos.pack();
+            chunk.blocks.remove(key);
+            chunk.touch(key);
+        }
+        return write(tx -> store.delete(tx, uid, pos));
+    }
+
+    private CompletableFuture<Void> write(TxWork work) {
+        return db.<Void>transactionAsync(tx -> {
+            work.run(tx);
+            return null;
+        }).whenComplete((ignored, err) -> {
+            if (err != null) {
+                plugin.getLogger().warning("[ByteLib-DB] Chunk cache write failed: " + err);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface TxWork {
+        void run(SqliteDatabase.Tx tx) throws Exception;
+    }
+
+    // ----------------------
+    // Chunk lifecycle
+    // ----------------------
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        request(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        LongObjectMap<ChunkData<V>> chunks = worlds.get(event.getWorld().getUID());
+        if (chunks == null) return;
+        Chunk chunk = event.getChunk();
+        // Dropping the entry also orphans an in-flight load; its result is ignored when it arrives
+        chunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    private void request(UUID world, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkData<V>> chunks = worlds.computeIfAbsent(world, w -> new LongObjectMap<>(256));
+        long key = chunkKey(chunkX, chunkZ);
+        if (chunks.containsKey(key)) return;
+
+        ChunkData<V> chunk = new ChunkData<>();
+        chunks.put(key, chunk);
+
+        db.transactionAsync(tx -> store.load(tx, world, chunkX, chunkZ))
+                .whenComplete((rows, err) -> toMainThread(() -> install(world, key, chunk, rows, err)));
+    }
+
+    private void install(UUID world, long key, ChunkData<V> chunk, Map<BlockPos, V> rows, Throwable err) {
+        if (!open) return;
+        LongObjectMap<ChunkData<V>> chunks = worlds.get(world);
+        // The chunk unloaded (and possibly loaded again) while its rows were in flight
+        if (chunks == null || chunks.get(key) != chunk) return;
+
+        if (err != null) {
+            chunks.remove(key);
+            plugin.getLogger().warning("[ByteLib-DB] Loading chunk data failed: " + err);
+            return;
+        }
+
+        if (rows == null) rows = Map.of();
+        for (Map.Entry<BlockPos, V> row : rows.entrySet()) {
+            long blockKey = row.getKey().pack();
+            // Writes made while the load was in flight are newer than anything it read
+            if (chunk.touched != null && chunk.touched.containsKey(blockKey)) continue;
+            if (row.getValue() != null) chunk.blocks.put(blockKey, row.getValue());
+        }
+        chunk.touched = null;
+        chunk.ready = true;
+    }
+
+    private void toMainThread(Runnable task) {
+        if (!plugin.isEnabled()) return;
+        try {
+            Bukkit.getScheduler().runTask(plugin, task);
+        } catch (RuntimeException e) {
+            // Plugin is disabling; nothing left to install into
+        }
+    }
+
+    private ChunkData<V> chunk(UUID world, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkData<V>> chunks = worlds.get(world);
+        return chunks == null ? null : chunks.get(chunkKey(chunkX, chunkZ));
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static void requireMainThread() {
+        if (!Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("ChunkPrefetchCache must be used from the main thread");
+        }
+    }
+
+    /**
+     * Unregisters the listeners and drops everything held in memory. Queued writes still complete.
+     */
+    @Override
+    public void close() {
+        open = false;
+        HandlerList.unregisterAll(this);
+        worlds.clear();
+    }
+
+    private static final class ChunkData<V> {
+        final LongObjectMap<V> blocks = new LongObjectMap<>();
+        // Keys written while the load is in flight; null once the chunk is ready
+        LongObjectMap<Boolean> touched;
+        boolean ready;
+
+        void touch(long key) {
+            if (ready) return;
+            if (touched == null) touched = new LongObjectMap<>();
+            touched.put(key, Boolean.TRUE);
+        }
+    }
+}
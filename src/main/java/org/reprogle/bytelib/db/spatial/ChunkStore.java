@@ -0,0 +1,30 @@
+package org.reprogle.bytelib.db.spatial;
+
+import org.reprogle.bytelib.db.api.BlockPos;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * How a {@link ChunkPrefetchCache} reads and writes its rows. Every method runs on the DB thread inside a
+ * transaction, in the order the calls were made, so a chunk load always sees the writes issued before it.
+ * <p>
+ * Loads are typically a single range scan, for example with a Morton-keyed column:
+ * <pre>{@code
+ * long[] range = BlockPos.mortonChunkRange(chunkX, chunkZ);
+ * tx.query("SELECT pos, kind FROM special_blocks WHERE world = ? AND pos BETWEEN ? AND ?", ...)
+ * }</pre>
+ *
+ * @param <V> The value held per block
+ */
+public interface ChunkStore<V> {
+    /**
+     * Returns every entry in the given chunk column.
+     */
+    Map<BlockPos, V> load(SqliteDatabase.Tx tx, UUID world, int chunkX, int chunkZ) throws Exception;
+
+    void save(SqliteDatabase.Tx tx, UUID world, BlockPos pos, V value) throws Exception;
+
+    void delete(SqliteDatabase.Tx tx, UUID world, BlockPos pos) throws Exception;
+}
@@ -0,0 +1,198 @@
+package org.reprogle.bytelib.db.spatial;
+
+import org.reprogle.bytelib.db.api.BlockPos;
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A spatial index over block boxes backed by an SQLite R*Tree ({@code rtree_i32}) virtual table. Box and radius
+ * lookups walk the tree instead of range-scanning x, y, and z columns, where an ordinary index can only narrow one
+ * axis.
+ * <p>
+ * Each entry is keyed by a 64-bit id, normally the rowid of the row it indexes in the owning table, and carries its
+ * world id (see {@link WorldDictionary}) as an auxiliary column. Single blocks are stored as one-block boxes.
+ * <p>
+ * The table looks like:
+ * <pre>{@code
+ * CREATE VIRTUAL TABLE <name> USING rtree_i32(id, min_x, max_x, min_y, max_y, min_z, max_z, +world_id)
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class RTreeIndex {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final SqliteDatabase db;
+    private final String table;
+
+    /**
+     * @param db    The database holding the index
+     * @param table Name of the virtual table. Create it with {@link #create()} or from a migration via
+     *              {@link #createSql()}
+     */
+    public RTreeIndex(SqliteDatabase db, String table) {
+        this.db = Objects.requireNonNull(db, "db");
+        this.table = Objects.requireNonNull(table, "table");
+        if (!IDENTIFIER.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public String createSql() {
+        return "CREATE VIRTUAL TABLE IF NOT EXISTS " + table
+                + " USING rtree_i32(id, min_x, max_x, min_y, max_y, min_z, max_z, +world_id)";
+    }
+
+    public void create() {
+        db.execute(createSql());
+    }
+
+    // ----------------------
+    // Writes
+    // ----------------------
+
+    public void put(long id, int worldId, BlockPos pos) {
+        put(id, worldId, pos, pos);
+    }
+
+    /**
+     * Adds or replaces the entry for {@code id}. The corners may be given in any order.
+     */
+    public void put(long id, int worldId, BlockPos corner1, BlockPos corner2) {
+        db.execute(putSql(), putParams(id, worldId, corner1, corner2));
+    }
+
+    /**
+     * Same as {@link #put(long, int, BlockPos, BlockPos)}, as part of a transaction. Use this for bulk loads; one
+     * transaction per entry is far slower than the R*Tree insert itself.
+     */
+    public void put(SqliteDatabase.Tx tx, long id, int worldId, BlockPos corner1, BlockPos corner2) {
+        tx.execute(putSql(), putParams(id, worldId, corner1, corner2));
+    }
+
+    public int remove(long id) {
+        return db.execute("DELETE FROM " + table + " WHERE id = ?", Param.i64(id));
+    }
+
+    public int remove(SqliteDatabase.Tx tx, long id) {
+        return tx.execute("DELETE FROM " + table + " WHERE id = ?", Param.i64(id));
+    }
+
+    private String putSql() {
+        return "INSERT OR REPLACE INTO " + table
+                + " (id, min_x, max_x, min_y, max_y, min_z, max_z, world_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    private static Param<?>[] putParams(long id, int worldId, BlockPos a, BlockPos b) {
+        Objects.requireNonNull(a, "corner1");
+        Objects.requireNonNull(b, "corner2");
+        return new Param<?>[]{
+                Param.i64(id),
+                Param.i32(Math.min(a.x(), b.x())), Param.i32(Math.max(a.x(), b.x())),
+                Param.i32(Math.min(a.y(), b.y())), Param.i32(Math.max(a.y(), b.y())),
+                Param.i32(Math.min(a.z(), b.z())), Param.i32(Math.max(a.z(), b.z())),
+                Param.i32(worldId)
+        };
+    }
+
+    // ----------------------
+    // Lookups
+    // ----------------------
+
+    /**
+     * Ids of every entry in {@code worldId} that intersects the box spanned by the two corners (inclusive).
+     */
+    public List<Long> idsInBox(int worldId, BlockPos corner1, BlockPos corner2) {
+        Filter box = intersecting(worldId, corner1, corner2);
+        return db.query("SELECT id FROM " + table + " WHERE " + box.sql(), row -> row.i64("id"), box.params());
+    }
+
+    /**
+     * Ids of every entry in {@code worldId} within {@code radius} blocks (Euclidean) of {@code center}. The R*Tree
+     * narrows the search to the enclosing cube; the exact distance check runs on the few candidates it returns.
+     */
+    public List<Long> idsInRadius(int worldId, BlockPos center, int radius) {
+        Objects.requireNonNull(center, "center");
+        if (radius < 0) throw new IllegalArgumentException("radius must be >= 0");
+
+        Filter cube = intersecting(worldId, cube(center, -radius), cube(center, radius));
+        List<Entry> candidates = db.query(
+                "SELECT id, min_x, max_x, min_y, max_y, min_z, max_z FROM " + table + " WHERE " + cube.sql(),
+                row -> new Entry(row.i64("id"),
+                        row.i32("min_x"), row.i32("max_x"),
+                        row.i32("min_y"), row.i32("max_y"),
+                        row.i32("min_z"), row.i32("max_z")),
+                cube.params()
+        );
+
+        long limit = (long) radius * radius;
+        List<Long> out = new ArrayList<>(candidates.size());
+        for (Entry e : candidates) {
+            if (e.distanceSquaredTo(center) <= limit) out.add(e.id());
+        }
+        return out;
+    }
+
+    /**
+     * A {@code WHERE} fragment restricting {@code idExpr} to entries intersecting a box, for joining the index
+     * against the table it indexes:
+     * <pre>{@code
+     * Filter f = index.within("s.rowid", worldId, a, b);
+     * db.query("SELECT s.* FROM spawners s WHERE " + f.sql(), mapper, f.params());
+     * }</pre>
+     */
+    public Filter within(String idExpr, int worldId, BlockPos corner1, BlockPos corner2) {
+        Filter box = intersecting(worldId, corner1, corner2);
+        return new Filter(idExpr + " IN (SELECT id FROM " + table + " WHERE " + box.sql() + ")", box.params());
+    }
+
+    private static Filter intersecting(int worldId, BlockPos a, BlockPos b) {
+        Objects.requireNonNull(a, "corner1");
+        Objects.requireNonNull(b, "corner2");
+        // Overlap test: the entry's max is at or past the box's min and its min at or before the box's max
+        return new Filter(
+                "max_x >= ? AND min_x <= ? AND max_y >= ? AND min_y <= ? AND max_z >= ? AND min_z <= ? AND world_id = ?",
+                new Param<?>[]{
+                        Param.i32(Math.min(a.x(), b.x())), Param.i32(Math.max(a.x(), b.x())),
+                        Param.i32(Math.min(a.y(), b.y())), Param.i32(Math.max(a.y(), b.y())),
+                        Param.i32(Math.min(a.z(), b.z())), Param.i32(Math.max(a.z(), b.z())),
+                        Param.i32(worldId)
+                }
+        );
+    }
+
+    private static BlockPos cube(BlockPos center, int offset) {
+        return new BlockPos(
+                clamp((long) center.x() + offset, BlockPos.MIN_XZ, BlockPos.MAX_XZ),
+                clamp((long) center.y() + offset, BlockPos.MIN_Y, BlockPos.MAX_Y),
+                clamp((long) center.z() + offset, BlockPos.MIN_XZ, BlockPos.MAX_XZ)
+        );
+    }
+
+    private static int clamp(long v, int min, int max) {
+        return (int) Math.max(min, Math.min(max, v));
+    }
+
+    /**
+     * A SQL condition and the parameters it binds, in order.
+     */
+    public record Filter(String sql, Param<?>[] params) {
+    }
+
+    private record Entry(long id, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        long distanceSquaredTo(BlockPos p) {
+            long dx = Math.max(0, Math.max((long) minX - p.x(), (long) p.x() - maxX));
+            long dy = Math.max(0, Math.max((long) minY - p.y(), (long) p.y() - maxY));
+            long dz = Math.max(0, Math.max((long) minZ - p.z(), (long) p.z() - maxZ));
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.reprogle.bytelib.db.spatial;
+
+import org.bukkit.World;
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.sqlite.SqliteDatabase;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps world UUIDs to small integer ids, so location rows can reference their world with a small
+ * {@code INTEGER} instead of a 36-character string. Ids are assigned on first use and never change.
+ * <p>
+ * The whole dictionary is held in memory after the first lookup; servers have a handful of worlds.
+ */
+@SuppressWarnings("unused")
+public final class WorldDictionary {
+    public static final String TABLE = "bytelib_worlds";
+
+    private final SqliteDatabase db;
+    private final ConcurrentHashMap<UUID, Integer> ids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, UUID> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the dictionary table if needed and loads the existing ids.
+     */
+    public WorldDictionary(SqliteDatabase db) {
+        this.db = Objects.requireNonNull(db, "db");
+        // Read inside a transaction so the one-off load skips the query cache
+        List<Entry> existing = db.transaction(tx -> {
+            tx.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (id INTEGER PRIMARY KEY, uid TEXT NOT NULL UNIQUE)");
+            return tx.query("SELECT id, uid FROM " + TABLE, row -> new Entry(row.i32("id"), row.uuid("uid")));
+        });
+        for (Entry entry : existing) remember(entry.id(), entry.uid());
+    }
+
+    public int idFor(World world) {
+        return idFor(Objects.requireNonNull(world, "world").getUID());
+    }
+
+    /**
+     * Returns the id of the given world, assigning one if it has none yet.
+     */
+    public int idFor(UUID worldUid) {
+        Objects.requireNonNull(worldUid, "worldUid");
+        Integer known = ids.get(worldUid);
+        if (known != null) return known;
+
+        Integer id = db.transaction(tx -> {
+            tx.execute("INSERT OR IGNORE INTO " + TABLE + " (uid) VALUES (?)", Param.uuid(worldUid));
+            return tx.queryOne("SELECT id FROM " + TABLE + " WHERE uid = ?", row -> row.i32("id"), Param.uuid(worldUid));
+        });
+        if (id == null) throw new IllegalStateException("No id assigned to world " + worldUid);
+        remember(id, worldUid);
+        return id;
+    }
+
+    /**
+     * Returns the world UUID for an id, or null if the id was never assigned.
+     */
+    public UUID worldFor(int id) {
+        UUID known = worlds.get(id);
+        if (known != null) return known;
+
+        UUID uid = db.queryOne("SELECT uid FROM " + TABLE + " WHERE id = ?", row -> row.uuid("uid"), Param.i32(id));
+        if (uid != null) remember(id, uid);
+        return uid;
+    }
+
+    private void remember(int id, UUID uid) {
+        ids.put(uid, id);
+        worlds.put(id, uid);
+    }
+
+    private record Entry(int id, UUID uid) {
+    }
+}
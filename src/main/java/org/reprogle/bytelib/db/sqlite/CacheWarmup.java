@@ -0,0 +1,16 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import java.util.Collection;
+
+/**
+ * Declares queries to preload into the {@link SqliteDatabase} cache while the plugin enables. Contribute
+ * implementations through Guice, the same way as lifecycles:
+ *
+ * <pre>{@code
+ * Multibinder.newSetBinder(binder(), CacheWarmup.class).addBinding().to(HomesWarmup.class);
+ * }</pre>
+ */
+@FunctionalInterface
+public interface CacheWarmup {
+    Collection<WarmupQuery<?>> queries();
+}
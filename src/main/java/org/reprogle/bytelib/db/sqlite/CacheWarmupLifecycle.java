@@ -0,0 +1,46 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import com.google.inject.Inject;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public final class CacheWarmupLifecycle implements PluginLifecycle {
+    private final SqliteDatabase db;
+    private final Set<CacheWarmup> warmups;
+    private final ComponentLogger logger;
+
+    @Inject
+    public CacheWarmupLifecycle(SqliteDatabase db, Set<CacheWarmup> warmups, ComponentLogger logger) {
+        this.db = db;
+        this.warmups = warmups;
+        this.logger = logger;
+    }
+
+    @Override
+    public Set<Class<? extends PluginLifecycle>> dependsOn() {
+        return Set.of(SqliteLifecycle.class);
+    }
+
+    @Override
+    public void onEnable() {
+        List<WarmupQuery<?>> queries = new ArrayList<>();
+        for (CacheWarmup warmup : warmups) {
+            queries.addAll(warmup.queries());
+        }
+        if (queries.isEmpty()) return;
+
+        db.warmUp(queries).whenComplete((report, err) -> {
+            if (err != null) {
+                logger.warn("Cache warm-up failed", err);
+                return;
+            }
+            logger.info("Cache warm-up loaded {} entries in {}ms ({} failed)",
+                    report.loaded(), TimeUnit.NANOSECONDS.toMillis(report.nanos()), report.failed());
+        });
+    }
+}
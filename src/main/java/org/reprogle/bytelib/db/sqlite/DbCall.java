@@ -0,0 +1,105 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.exceptions.DbTimeoutException;
+import org.sqlite.SQLiteConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Handle on one blocking DB call, shared between the thread waiting for it and the DB thread running it.
+ * <p>
+ * The DB thread attaches each connection it opens for the call; {@link #cancel(String)} interrupts whatever statement is
+ * running on that connection. Attaching, detaching, and interrupting share one lock so a connection is never
+ * interrupted after it has been closed. {@code sqlite3_interrupt} does nothing while no statement is running, so the
+ * DB thread also checks {@link #throwIfCancelled()} before each statement it starts.
+ */
+final class DbCall {
+    private final String opName;
+    private Connection connection;
+    private volatile boolean started;
+    private volatile boolean finished;
+    private volatile boolean cancelled;
+    private volatile String reason;
+
+    DbCall(String opName) {
+        this.opName = opName;
+    }
+
+    String opName() {
+        return opName;
+    }
+
+    boolean started() {
+        return started;
+    }
+
+    boolean cancelled() {
+        return cancelled;
+    }
+
+    void markStarted() {
+        started = true;
+    }
+
+    void markFinished() {
+        finished = true;
+    }
+
+    /**
+     * Makes {@code conn} the connection {@link #cancel(String)} interrupts.
+     *
+     * @return The previously attached connection, to be restored with {@link #detach(Connection)}
+     */
+    synchronized Connection attach(Connection conn) {
+        Connection previous = connection;
+        connection = conn;
+        return previous;
+    }
+
+    /**
+     * Must be called before the attached connection is closed.
+     */
+    synchronized void detach(Connection previous) {
+        connection = previous;
+    }
+
+    /**
+     * Stops the call. Running statements fail with {@code SQLITE_INTERRUPT}; statements not yet started are refused,
+     * and so is the whole call if it is still queued.
+     *
+     * @param reason Completes "DB &lt;op&gt; ..." in the exception the DB thread throws
+     * @return false if the call had already finished, so there was nothing to cancel
+     */
+    boolean cancel(String reason) {
+        if (finished) return false;
+        this.reason = reason;
+        cancelled = true;
+        synchronized (this) {
+            if (connection != null) {
+                interrupt(connection);
+            }
+        }
+        return true;
+    }
+
+    void throwIfCancelled() {
+        if (cancelled) {
+            throw timedOut(null);
+        }
+    }
+
+    DbTimeoutException timedOut(Throwable cause) {
+        return new DbTimeoutException("DB " + opName + " " + reason, cause);
+    }
+
+    private static void interrupt(Connection conn) {
+        try {
+            if (conn.isWrapperFor(SQLiteConnection.class)) {
+                conn.unwrap(SQLiteConnection.class).getDatabase().interrupt();
+            }
+        } catch (SQLException ignored) {
+            // Connection already failed; the DB thread will see the cancelled flag at its next statement
+        }
+    }
+}
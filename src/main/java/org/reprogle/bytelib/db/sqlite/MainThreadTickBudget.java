@@ -0,0 +1,51 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import java.util.Objects;
+
+/**
+ * Adds up main-thread DB time per server tick. Only ever touched from the main thread, so it keeps plain fields.
+ * When a new tick is observed, the previous tick's total is handed to {@link SqliteMetrics} for the usage histogram.
+ */
+final class MainThreadTickBudget {
+    private final SqliteConfig.TickBudgetConfig config;
+    private final SqliteMetrics metrics;
+    private final long budgetNanos;
+
+    private long tick = Long.MIN_VALUE;
+    private long usedNanos;
+
+    MainThreadTickBudget(SqliteConfig.TickBudgetConfig config, SqliteMetrics metrics) {
+        this.config = Objects.requireNonNull(config, "config");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.budgetNanos = config.enabled() ? config.budgetPerTick().toNanos() : 0L;
+    }
+
+    SqliteConfig.BudgetExhaustedBehavior behavior() {
+        return config.behavior();
+    }
+
+    boolean exhausted(long currentTick) {
+        roll(currentTick);
+        return budgetNanos > 0 && usedNanos >= budgetNanos;
+    }
+
+    void record(long currentTick, long nanos) {
+        roll(currentTick);
+        usedNanos += nanos;
+    }
+
+    long usedNanos(long currentTick) {
+        roll(currentTick);
+        return usedNanos;
+    }
+
+    private void roll(long currentTick) {
+        if (currentTick == tick) return;
+        // Ticks without any DB time are not recorded; they would drown out the ticks worth tuning for
+        if (tick != Long.MIN_VALUE && usedNanos > 0) {
+            metrics.recordTickUsage(usedNanos, budgetNanos > 0 && usedNanos >= budgetNanos);
+        }
+        tick = currentTick;
+        usedNanos = 0;
+    }
+}
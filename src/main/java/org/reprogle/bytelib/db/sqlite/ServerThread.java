@@ -0,0 +1,25 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.bukkit.Bukkit;
+
+/**
+ * The two things {@link SqliteDatabase} asks the server: whether the caller is on the main thread, and which tick it
+ * is. Behind an interface so the database can run headless, e.g. in {@link WorkloadReplayer}.
+ */
+interface ServerThread {
+    boolean isPrimaryThread();
+
+    long currentTick();
+
+    ServerThread BUKKIT = new ServerThread() {
+        @Override
+        public boolean isPrimaryThread() {
+            return Bukkit.isPrimaryThread();
+        }
+
+        @Override
+        public long currentTick() {
+            return Bukkit.getCurrentTick();
+        }
+    };
+}
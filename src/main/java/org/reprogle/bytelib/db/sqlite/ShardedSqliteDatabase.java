@@ -0,0 +1,205 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.api.RowMapper;
+import org.reprogle.bytelib.db.migrate.UserVersionMigrator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Spreads data over several SQLite files so writes are no longer funnelled through one writer. Each shard is a full
+ * {@link SqliteDatabase} with its own DB thread, cache, and file; rows are routed to a shard by key.
+ * <p>
+ * The shard count is part of the on-disk layout. Changing it re-routes keys to different files, so pick it once and
+ * keep it.
+ */
+@SuppressWarnings("unused")
+public final class ShardedSqliteDatabase implements AutoCloseable {
+    private final List<SqliteDatabase> shards;
+
+    /**
+     * Creates (or opens) {@code shardCount} database files next to each other. Like {@link SqliteDatabase}, this
+     * should be created via {@link ShardedSqliteModule} rather than by hand.
+     *
+     * @param plugin     The plugin booted by this library
+     * @param baseFile   The path shard files are derived from. {@code data.db} becomes {@code data-0.db},
+     *                   {@code data-1.db}, ...
+     * @param shardCount Number of shards. Must be at least 1
+     * @param config     The configuration applied to every shard
+     */
+    public ShardedSqliteDatabase(JavaPlugin plugin, Path baseFile, int shardCount, SqliteConfig config) {
+        Objects.requireNonNull(plugin, "plugin");
+        Objects.requireNonNull(baseFile, "baseFile");
+        Objects.requireNonNull(config, "config");
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be >= 1");
+
+        List<SqliteDatabase> opened = new ArrayList<>(shardCount);
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                opened.add(new SqliteDatabase(plugin, shardFile(baseFile, i), config));
+            }
+        } catch (RuntimeException e) {
+            opened.forEach(SqliteDatabase::close);
+            throw e;
+        }
+        this.shards = List.copyOf(opened);
+    }
+
+    // ----------------------
+    // Routing
+    // ----------------------
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public SqliteDatabase shard(int index) {
+        return shards.get(index);
+    }
+
+    public List<SqliteDatabase> shards() {
+        return shards;
+    }
+
+    /**
+     * Returns the shard that owns {@code key}. Keys must have a stable {@code hashCode}, which rules out
+     * identity-hashed objects.
+     */
+    public SqliteDatabase forKey(Object key) {
+        Objects.requireNonNull(key, "key");
+        return shards.get(indexFor(key.hashCode()));
+    }
+
+    public SqliteDatabase forPlayer(UUID playerId) {
+        return forKey(playerId);
+    }
+
+    public int indexFor(int hash) {
+        // Spread the high bits down; UUID and String hashes are weak in the low bits
+        int h = hash ^ (hash >>> 16);
+        h *= 0x9E3779B1;
+        return Math.floorMod(h ^ (h >>> 15), shards.size());
+    }
+
+    // ----------------------
+    // All-shard operations
+    // ----------------------
+
+    /**
+     * Runs the migrator against every shard, one after another. A failure stops the remaining shards from migrating
+     * and is rethrown; shards that already migrated stay migrated.
+     */
+    public void migrate(UserVersionMigrator migrator) {
+        Objects.requireNonNull(migrator, "migrator");
+        for (SqliteDatabase shard : shards) {
+            migrator.migrate(shard);
+        }
+    }
+
+    /**
+     * Runs {@code sql} against every shard in parallel (one per shard DB thread) and concatenates the results in
+     * shard order. Cached per shard like {@link SqliteDatabase#query}.
+     * <p>
+     * On the main thread the shards are queried one after another through {@link SqliteDatabase#query}, so the main
+     * thread policy, timeout, and tick budget apply to each of them exactly as they would to a single query.
+     */
+    public <T> List<T> queryAll(String sql, RowMapper<T> mapper, Param<?>... params) {
+        if (!onMainThread()) return queryAllAsync(sql, mapper, params).join();
+
+        Objects.requireNonNull(sql, "sql");
+        Objects.requireNonNull(mapper, "mapper");
+        List<T> out = new ArrayList<>();
+        for (SqliteDatabase shard : shards) {
+            out.addAll(shard.query(sql, mapper, params));
+        }
+        return out;
+    }
+
+    /**
+     * Like {@link #queryAll(String, RowMapper, Param[])}, then merges the per-shard results by {@code order}.
+     * If every shard already sorts by the same order, the sort only has to merge those runs.
+     */
+    public <T> List<T> queryAll(String sql, RowMapper<T> mapper, Comparator<? super T> order, Param<?>... params) {
+        Objects.requireNonNull(order, "order");
+        List<T> all = new ArrayList<>(queryAll(sql, mapper, params));
+        all.sort(order);
+        return all;
+    }
+
+    public <T> CompletableFuture<List<T>> queryAllAsync(String sql, RowMapper<T> mapper, Param<?>... params) {
+        Objects.requireNonNull(sql, "sql");
+        Objects.requireNonNull(mapper, "mapper");
+        return gather(shard -> shard.queryAsync(sql, mapper, params))
+                .thenApply(perShard -> {
+                    int size = perShard.stream().mapToInt(List::size).sum();
+                    List<T> out = new ArrayList<>(size);
+                    perShard.forEach(out::addAll);
+                    return out;
+                });
+    }
+
+    /**
+     * Runs {@code sql} against every shard in parallel and returns the total number of affected rows. On the main
+     * thread the shards run one after another under the same guards as {@link SqliteDatabase#execute}.
+     */
+    public int executeAll(String sql, Param<?>... params) {
+        Objects.requireNonNull(sql, "sql");
+        if (onMainThread()) {
+            int updated = 0;
+            for (SqliteDatabase shard : shards) {
+                updated += shard.execute(sql, params);
+            }
+            return updated;
+        }
+        return gather(shard -> shard.executeAsync(sql, params))
+                .thenApply(counts -> counts.stream().mapToInt(Integer::intValue).sum())
+                .join();
+    }
+
+    /**
+     * General scatter-gather: starts {@code work} on every shard and collects the per-shard results in shard order.
+     */
+    public <R> CompletableFuture<List<R>> gather(Function<SqliteDatabase, CompletableFuture<R>> work) {
+        Objects.requireNonNull(work, "work");
+        List<CompletableFuture<R>> futures = new ArrayList<>(shards.size());
+        for (SqliteDatabase shard : shards) {
+            futures.add(work.apply(shard));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    public void invalidateAll() {
+        shards.forEach(SqliteDatabase::invalidateAll);
+    }
+
+    public void invalidateTable(String tableName) {
+        shards.forEach(shard -> shard.invalidateTable(tableName));
+    }
+
+    private boolean onMainThread() {
+        return shards.getFirst().onMainThread();
+    }
+
+    static Path shardFile(Path baseFile, int index) {
+        String name = baseFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String sharded = dot > 0
+                ? name.substring(0, dot) + "-" + index + name.substring(dot)
+                : name + "-" + index;
+        return baseFile.resolveSibling(sharded);
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(SqliteDatabase::close);
+    }
+}
@@ -0,0 +1,21 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import com.google.inject.Inject;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+/**
+ * Closes every shard of the {@link ShardedSqliteDatabase} when the plugin disables. See {@link SqliteLifecycle}.
+ */
+public final class ShardedSqliteLifecycle implements PluginLifecycle {
+    private final ShardedSqliteDatabase db;
+
+    @Inject
+    public ShardedSqliteLifecycle(ShardedSqliteDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public void onDisable() {
+        db.close();
+    }
+}
@@ -0,0 +1,47 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Binds a {@link ShardedSqliteDatabase}. Unlike {@link SqliteModule} the config is not bound on its own, so both
+ * modules can be installed side by side (for example a single-file database for global data next to sharded
+ * per-player data).
+ */
+public final class ShardedSqliteModule extends AbstractModule {
+    private final String fileName;
+    private final int shardCount;
+    private final SqliteConfig config;
+
+    public ShardedSqliteModule(String fileName, int shardCount) {
+        this(fileName, shardCount, SqliteConfig.defaults());
+    }
+
+    public ShardedSqliteModule(String fileName, int shardCount, SqliteConfig config) {
+        this.fileName = Objects.requireNonNull(fileName, "fileName");
+        this.config = Objects.requireNonNull(config, "config");
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be >= 1");
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    protected void configure() {
+        Multibinder.newSetBinder(binder(), PluginLifecycle.class)
+                .addBinding()
+                .to(ShardedSqliteLifecycle.class);
+    }
+
+    @Provides
+    @Singleton
+    public ShardedSqliteDatabase shardedSqliteDatabase(JavaPlugin plugin, Path dataDirectory) {
+        Path baseFile = dataDirectory.resolve(fileName);
+        return new ShardedSqliteDatabase(plugin, baseFile, shardCount, config);
+    }
+}
@@ -0,0 +1,147 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Takes online copies of a live database without going through the DB thread.
+ * <p>
+ * In WAL mode the copy is a {@code VACUUM INTO} from a dedicated read connection: that is a single read snapshot,
+ * which never takes the write lock and never blocks readers, so the writer keeps going for the whole copy. Other
+ * journal modes use the driver's online backup API in page batches, sleeping between batches so the writer is only
+ * ever held off for one step.
+ */
+final class SqliteBackup {
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final int BUSY_RETRIES = 50;
+
+    private final Path dbFile;
+    private final SqliteConfig config;
+
+    SqliteBackup(Path dbFile, SqliteConfig config) {
+        this.dbFile = Objects.requireNonNull(dbFile, "dbFile");
+        this.config = Objects.requireNonNull(config, "config");
+    }
+
+    /**
+     * Copies the database to {@code target}. The copy is written next to the target first and moved into place once
+     * complete, so a crash mid-backup never leaves a truncated file under the final name.
+     */
+    Path copyTo(Path target) throws IOException, SQLException {
+        Path absolute = target.toAbsolutePath();
+        if (absolute.equals(dbFile.toAbsolutePath())) {
+            throw new IllegalArgumentException("Backup target is the live database: " + target);
+        }
+
+        Path parent = absolute.getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath())) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA busy_timeout=" + config.busyTimeoutMs() + ";");
+            }
+
+            if ("WAL".equalsIgnoreCase(config.journalMode())) {
+                vacuumInto(conn, tmp);
+            } else {
+                pagedBackup(conn, tmp);
+            }
+        } catch (SQLException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return absolute;
+    }
+
+    /**
+     * Takes a timestamped backup into the configured directory, then deletes the oldest ones beyond {@code keep}.
+     */
+    Path rotate() throws IOException, SQLException {
+        Path dir = backupDirectory();
+        Path written = copyTo(dir.resolve(baseName() + "-" + STAMP.format(Instant.now()) + ".db"));
+
+        int keep = Math.max(1, config.backup().keep());
+        List<Path> existing = listBackups(dir);
+        for (int i = keep; i < existing.size(); i++) {
+            Files.deleteIfExists(existing.get(i));
+        }
+        return written;
+    }
+
+    private void vacuumInto(Connection conn, Path tmp) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("VACUUM INTO ?;")) {
+            ps.setString(1, tmp.toString());
+            ps.execute();
+        }
+    }
+
+    private void pagedBackup(Connection conn, Path tmp) throws SQLException {
+        SqliteConfig.BackupConfig backup = config.backup();
+        int pagesPerStep = backup.pagesPerStep() <= 0 ? -1 : backup.pagesPerStep();
+        long pauseMs = backup.stepPause() == null ? 0 : Math.max(0, backup.stepPause().toMillis());
+        int busySleepMs = (int) Math.max(1, pauseMs);
+
+        SQLiteConnection sqlite = conn.unwrap(SQLiteConnection.class);
+        sqlite.getDatabase().backup("main", tmp.toString(), (remaining, pageCount) -> {
+            if (remaining <= 0 || pauseMs == 0) return;
+            try {
+                TimeUnit.MILLISECONDS.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, busySleepMs, BUSY_RETRIES, pagesPerStep);
+    }
+
+    private Path backupDirectory() {
+        Path dir = config.backup().directory();
+        if (dir == null) dir = Path.of("backups");
+        if (dir.isAbsolute()) return dir;
+        Path parent = dbFile.toAbsolutePath().getParent();
+        return parent == null ? dir.toAbsolutePath() : parent.resolve(dir);
+    }
+
+    private List<Path> listBackups(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        String prefix = baseName() + "-";
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> out = new ArrayList<>(files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(".db");
+                    })
+                    .toList());
+            // Timestamps are fixed-width, so newest-first is just reverse name order
+            out.sort(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed());
+            return out;
+        }
+    }
+
+    private String baseName() {
+        String name = dbFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,130 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.DataChange;
+import org.sqlite.SQLiteCommitListener;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteUpdateListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Collects the tables (and optionally rows) each transaction actually modified, using SQLite's update and commit hooks.
+ * Changes are held as pending until the commit hook fires and dropped on rollback.
+ * <p>
+ * Each tracker belongs to one connection opened on the DB thread, so this is only ever touched from that thread.
+ * Note that SQLite skips the update hook for the truncate optimization ({@code DELETE} without {@code WHERE}) and for
+ * {@code WITHOUT ROWID} tables, which is why callers keep a SQL-based fallback for writes that report nothing.
+ */
+final class SqliteChangeTracker implements SQLiteUpdateListener, SQLiteCommitListener {
+    private static final int MAX_ROW_CHANGES = 10_000;
+
+    private final Map<String, Set<DataChange.Type>> pendingTables = new HashMap<>();
+    private final List<DataChange> pendingRows = new ArrayList<>();
+    private boolean pendingOverflow;
+
+    private final Set<String> committedTables = new HashSet<>();
+    private final List<DataChange> committedRows = new ArrayList<>();
+
+    private final BooleanSupplier recordRows;
+    private long updates;
+
+    /**
+     * @param recordRows Whether row-level changes are wanted, asked as they happen
+     */
+    SqliteChangeTracker(BooleanSupplier recordRows) {
+        this.recordRows = recordRows;
+    }
+
+    /**
+     * Registers the hooks on a freshly opened connection.
+     *
+     * @return false if the driver isn't sqlite-jdbc, in which case nothing is tracked
+     */
+    boolean attach(Connection conn) {
+        try {
+            if (!conn.isWrapperFor(SQLiteConnection.class)) return false;
+            SQLiteConnection sqlite = conn.unwrap(SQLiteConnection.class);
+            sqlite.addUpdateListener(this);
+            sqlite.addCommitListener(this);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Monotonic count of row changes seen, committed or not. Comparing it before and after a statement tells whether
+     * the hooks saw that statement write anything.
+     */
+    long updates() {
+        return updates;
+    }
+
+    @Override
+    public void onUpdate(Type type, String database, String table, long rowId) {
+        updates++;
+        DataChange.Type changeType = switch (type) {
+            case INSERT -> DataChange.Type.INSERT;
+            case UPDATE -> DataChange.Type.UPDATE;
+            case DELETE -> DataChange.Type.DELETE;
+        };
+        pendingTables.computeIfAbsent(table, t -> EnumSet.noneOf(DataChange.Type.class)).add(changeType);
+
+        if (!recordRows.getAsBoolean() || pendingOverflow) return;
+        if (pendingRows.size() >= MAX_ROW_CHANGES) {
+            pendingRows.clear();
+            pendingOverflow = true;
+            return;
+        }
+        pendingRows.add(new DataChange(changeType, table, rowId));
+    }
+
+    @Override
+    public void onCommit() {
+        committedTables.addAll(pendingTables.keySet());
+        if (recordRows.getAsBoolean()) {
+            if (pendingOverflow) {
+                pendingTables.forEach((table, types) ->
+                        types.forEach(type -> committedRows.add(new DataChange(type, table, DataChange.MANY_ROWS))));
+            } else {
+                committedRows.addAll(pendingRows);
+            }
+        }
+        clearPending();
+    }
+
+    @Override
+    public void onRollback() {
+        clearPending();
+    }
+
+    /**
+     * Hands over everything committed since the last drain.
+     */
+    Committed drain() {
+        if (committedTables.isEmpty() && committedRows.isEmpty()) return Committed.EMPTY;
+        Committed out = new Committed(Set.copyOf(committedTables), List.copyOf(committedRows));
+        committedTables.clear();
+        committedRows.clear();
+        return out;
+    }
+
+    private void clearPending() {
+        pendingTables.clear();
+        pendingRows.clear();
+        pendingOverflow = false;
+    }
+
+    record Committed(Set<String> tables, List<DataChange> changes) {
+        static final Committed EMPTY = new Committed(Set.of(), List.of());
+    }
+}
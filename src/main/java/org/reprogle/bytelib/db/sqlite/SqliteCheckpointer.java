@@ -0,0 +1,133 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+/**
+ * Runs WAL checkpoints on ByteLib's schedule instead of on whichever write crosses the autocheckpoint threshold.
+ * <p>
+ * Passive checkpoints run on the maintenance thread through a connection held open for the database's lifetime.
+ * Holding it open also matters on its own: SQLite checkpoints and deletes the WAL whenever the last connection closes,
+ * and the DB thread may close its connection (on shutdown, or to replace a lost one). Escalated checkpoints block writers while they run,
+ * so they go through the DB thread to be serialized with ByteLib's own writes.
+ */
+final class SqliteCheckpointer implements AutoCloseable {
+    private final Path dbFile;
+    private final SqliteConfig config;
+    private final SqliteMetrics metrics;
+    private final DbThread dbThread;
+    private final Logger logger;
+
+    private Connection keeper;
+
+    @FunctionalInterface
+    interface DbThread {
+        <T> T run(Callable<T> work);
+    }
+
+    SqliteCheckpointer(Path dbFile, SqliteConfig config, SqliteMetrics metrics, DbThread dbThread, Logger logger) {
+        this.dbFile = Objects.requireNonNull(dbFile, "dbFile");
+        this.config = Objects.requireNonNull(config, "config");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.dbThread = Objects.requireNonNull(dbThread, "dbThread");
+        this.logger = Objects.requireNonNull(logger, "logger");
+    }
+
+    boolean enabled() {
+        SqliteConfig.CheckpointConfig cp = config.checkpoint();
+        return cp != null && cp.managed() && "WAL".equalsIgnoreCase(config.journalMode());
+    }
+
+    /**
+     * Called periodically from the maintenance thread.
+     *
+     * @param idleNanos How long the DB thread has been without work, or -1 if it is busy right now
+     */
+    void tick(long idleNanos) {
+        SqliteConfig.CheckpointConfig cp = config.checkpoint();
+        long walSize = metrics.walSizeBytes();
+        if (walSize == 0) return;
+
+        boolean idle = idleNanos >= 0 && idleNanos >= cp.idleAfter().toNanos();
+        boolean overLimit = cp.escalateAboveBytes() > 0 && walSize > cp.escalateAboveBytes();
+        // Past twice the limit we stop waiting for a quiet moment; an unbounded WAL is worse than one stall
+        boolean farOverLimit = overLimit && walSize > cp.escalateAboveBytes() * 2;
+
+        try {
+            if (overLimit && (idle || farOverLimit)) {
+                checkpointOnDbThread(cp.escalationMode());
+            } else if (idle) {
+                checkpoint(keeper(), SqliteConfig.CheckpointMode.PASSIVE);
+            }
+        } catch (Exception e) {
+            logger.warning("[ByteLib-DB] WAL checkpoint of " + dbFile.getFileName() + " failed: " + e);
+        }
+    }
+
+    /**
+     * Runs a checkpoint of the given mode on the DB thread. Used for escalation, manual checkpoints, and shutdown.
+     */
+    boolean checkpointOnDbThread(SqliteConfig.CheckpointMode mode) {
+        return dbThread.run(() -> {
+            try (Connection conn = open()) {
+                return checkpoint(conn, mode);
+            }
+        });
+    }
+
+    private boolean checkpoint(Connection conn, SqliteConfig.CheckpointMode mode) throws SQLException {
+        long start = System.nanoTime();
+        boolean busy;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA wal_checkpoint(" + mode.name() + ");")) {
+            // Columns: busy, log frames, checkpointed frames
+            busy = rs.next() && rs.getInt(1) != 0;
+        }
+        metrics.recordCheckpoint(mode, System.nanoTime() - start, busy);
+        return !busy;
+    }
+
+    private Connection keeper() throws SQLException {
+        if (keeper == null || keeper.isClosed()) {
+            keeper = open();
+        }
+        return keeper;
+    }
+
+    /**
+     * Opens the long-lived connection up front so the DB thread's connections are never the last one to close.
+     */
+    void start() {
+        try {
+            keeper();
+        } catch (SQLException e) {
+            logger.warning("[ByteLib-DB] Could not open checkpoint connection for " + dbFile.getFileName() + ": " + e);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA busy_timeout=" + config.busyTimeoutMs() + ";");
+        }
+        return conn;
+    }
+
+    @Override
+    public void close() {
+        if (keeper == null) return;
+        try {
+            keeper.close();
+        } catch (SQLException ignored) {
+            // closing anyway
+        }
+        keeper = null;
+    }
+}
@@ -1,5 +1,6 @@
 package org.reprogle.bytelib.db.sqlite;
 
+import java.nio.file.Path;
 import java.time.Duration;
 
 public record SqliteConfig(
@@ -11,8 +12,60 @@ public record SqliteConfig(
         MainThreadPolicy mainThreadPolicy,
         TimeoutBehavior timeoutBehavior,
         Duration slowQueryWarnThreshold,
-        CacheConfig cache
+        CacheConfig cache,
+        BackupConfig backup,
+        CheckpointConfig checkpoint,
+        PageCacheConfig pageCache,
+        TickBudgetConfig tickBudget,
+        WarmupConfig warmup,
+        CancellationConfig cancellation
 ) {
+    /**
+     * Sub-configs left null fall back to their {@code defaults()}.
+     */
+    public SqliteConfig {
+        if (cache == null) cache = CacheConfig.defaults();
+        if (backup == null) backup = BackupConfig.defaults();
+        if (checkpoint == null) checkpoint = CheckpointConfig.defaults();
+        if (pageCache == null) pageCache = PageCacheConfig.SQLITE_DEFAULTS;
+        if (tickBudget == null) tickBudget = TickBudgetConfig.defaults();
+        if (warmup == null) warmup = WarmupConfig.defaults();
+        if (cancellation == null) cancellation = CancellationConfig.defaults();
+    }
+
+    /**
+     * The original nine-component constructor; every sub-config added since uses its defaults.
+     */
+    public SqliteConfig(
+            boolean foreignKeys,
+            String journalMode,
+            String synchronous,
+            int busyTimeoutMs,
+            Duration mainThreadTimeout,
+            MainThreadPolicy mainThreadPolicy,
+            TimeoutBehavior timeoutBehavior,
+            Duration slowQueryWarnThreshold,
+            CacheConfig cache
+    ) {
+        this(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null
+        );
+    }
+
     public static SqliteConfig defaults() {
         return new SqliteConfig(
                 true,
@@ -23,7 +76,13 @@ public record SqliteConfig(
                 MainThreadPolicy.WARN,
                 TimeoutBehavior.THROW,
                 Duration.ofMillis(10),
-                CacheConfig.defaults()
+                CacheConfig.defaults(),
+                BackupConfig.defaults(),
+                CheckpointConfig.defaults(),
+                PageCacheConfig.SQLITE_DEFAULTS,
+                TickBudgetConfig.defaults(),
+                WarmupConfig.defaults(),
+                CancellationConfig.defaults()
         );
     }
 
@@ -37,7 +96,133 @@ public record SqliteConfig(
                 mainThreadPolicy,
                 timeoutBehavior,
                 slowQueryWarnThreshold,
-                cache
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withBackup(BackupConfig backup) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withCheckpoint(CheckpointConfig checkpoint) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withPageCache(PageCacheConfig pageCache) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withTickBudget(TickBudgetConfig tickBudget) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withWarmup(WarmupConfig warmup) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
+        );
+    }
+
+    public SqliteConfig withCancellation(CancellationConfig cancellation) {
+        return new SqliteConfig(
+                foreignKeys,
+                journalMode,
+                synchronous,
+                busyTimeoutMs,
+                mainThreadTimeout,
+                mainThreadPolicy,
+                timeoutBehavior,
+                slowQueryWarnThreshold,
+                cache,
+                backup,
+                checkpoint,
+                pageCache,
+                tickBudget,
+                warmup,
+                cancellation
         );
     }
 
@@ -53,6 +238,36 @@ public record SqliteConfig(
         THROW
     }
 
+    public enum BudgetExhaustedBehavior {
+        /**
+         * Cached query results are served regardless of age; anything that would hit the database throws.
+         */
+        SERVE_STALE,
+        /**
+         * Queries that would hit the database are skipped and return an empty list. Writes and transactions still throw
+         * {@link org.reprogle.bytelib.db.api.exceptions.DbTickBudgetExceededException}, since skipping them would
+         * silently lose data.
+         */
+        FAIL_OPEN,
+        /**
+         * Calls that would hit the database throw {@link org.reprogle.bytelib.db.api.exceptions.DbTickBudgetExceededException}.
+         */
+        THROW
+    }
+
+    public enum TempStore {
+        DEFAULT,
+        FILE,
+        MEMORY
+    }
+
+    public enum CheckpointMode {
+        PASSIVE,
+        FULL,
+        RESTART,
+        TRUNCATE
+    }
+
     public record CacheConfig(
             Duration ttl,
             Duration refreshAfter,
@@ -68,4 +283,183 @@ public record SqliteConfig(
             );
         }
     }
+
+    /**
+     * Online backup settings. Backups never copy the live file; they are taken from a dedicated read connection
+     * and written to a temporary file that is atomically moved into place once complete.
+     *
+     * @param directory    Where scheduled backups are written. Relative paths resolve against the database's folder
+     * @param interval     How often a scheduled backup is taken. Zero or negative disables scheduled backups
+     * @param keep         How many scheduled backups to retain. Older ones are deleted after each successful backup
+     * @param pagesPerStep Pages copied per step when using the paced backup API (non-WAL journal modes)
+     * @param stepPause    Pause between steps, giving the writer a window to take its locks
+     */
+    public record BackupConfig(
+            Path directory,
+            Duration interval,
+            int keep,
+            int pagesPerStep,
+            Duration stepPause
+    ) {
+        public static BackupConfig defaults() {
+            return new BackupConfig(
+                    Path.of("backups"),
+                    Duration.ZERO,
+                    7,
+                    100,
+                    Duration.ofMillis(10)
+            );
+        }
+
+        public static BackupConfig every(Path directory, Duration interval, int keep) {
+            BackupConfig d = defaults();
+            return new BackupConfig(directory, interval, keep, d.pagesPerStep(), d.stepPause());
+        }
+
+        public boolean enabled() {
+            return interval != null && !interval.isZero() && !interval.isNegative();
+        }
+    }
+
+    /**
+     * WAL checkpoint scheduling. Only applies when {@link #journalMode()} is {@code WAL}.
+     * <p>
+     * When managed, SQLite's own autocheckpoint is replaced by a timer: {@code PASSIVE} checkpoints run off the DB
+     * thread whenever the database has been idle for {@code idleAfter}, and once the WAL grows past
+     * {@code escalateAboveBytes} an {@code escalationMode} checkpoint is run on the DB thread to reset it. A final
+     * {@code TRUNCATE} checkpoint runs on close.
+     *
+     * @param managed              Whether ByteLib schedules checkpoints. When false SQLite's defaults apply
+     * @param autoCheckpointPages  Value for {@code wal_autocheckpoint} while managed. 0 disables it entirely
+     * @param interval             How often the scheduler wakes up
+     * @param idleAfter            How long the DB must have been quiet before a passive checkpoint is attempted
+     * @param escalateAboveBytes   WAL size that triggers an escalated checkpoint
+     * @param escalationMode       Mode used when escalating, usually {@code RESTART} or {@code TRUNCATE}
+     */
+    public record CheckpointConfig(
+            boolean managed,
+            int autoCheckpointPages,
+            Duration interval,
+            Duration idleAfter,
+            long escalateAboveBytes,
+            CheckpointMode escalationMode
+    ) {
+        public static CheckpointConfig defaults() {
+            return new CheckpointConfig(
+                    false,
+                    1000,
+                    Duration.ofSeconds(5),
+                    Duration.ofMillis(250),
+                    64L * 1024 * 1024,
+                    CheckpointMode.TRUNCATE
+            );
+        }
+
+        public static CheckpointConfig managedDefaults() {
+            return new CheckpointConfig(
+                    true,
+                    0,
+                    Duration.ofSeconds(5),
+                    Duration.ofMillis(250),
+                    64L * 1024 * 1024,
+                    CheckpointMode.TRUNCATE
+            );
+        }
+    }
+
+    /**
+     * Page cache and I/O tuning, applied to every connection ByteLib opens.
+     * <p>
+     * Calls run on the DB thread's long-lived connection, so its page cache and mmap window stay warm between calls.
+     * Memory-mapped pages are backed by the OS page cache, which also keeps them warm for the other connections.
+     *
+     * @param mmapSizeBytes Maximum bytes of the file to memory-map. 0 disables memory-mapped I/O
+     * @param cacheSizeKib  Page cache size per connection, in KiB
+     * @param tempStore     Where temporary tables and indices live
+     * @param pageSize      Page size in bytes. Only takes effect when the database file is created
+     */
+    public record PageCacheConfig(
+            long mmapSizeBytes,
+            int cacheSizeKib,
+            TempStore tempStore,
+            int pageSize
+    ) {
+        /**
+         * SQLite's compiled-in defaults; applying this changes nothing.
+         */
+        public static final PageCacheConfig SQLITE_DEFAULTS = new PageCacheConfig(0L, 2000, TempStore.DEFAULT, 4096);
+
+        /**
+         * Small footprint for shared hosts: a small cache, no mmap, and temp data on disk.
+         */
+        public static final PageCacheConfig LOW_MEMORY = new PageCacheConfig(0L, 512, TempStore.FILE, 4096);
+
+        /**
+         * A larger cache, a modest mmap window, and in-memory temp storage for sorts and group-bys.
+         */
+        public static final PageCacheConfig BALANCED = new PageCacheConfig(64L * 1024 * 1024, 8192, TempStore.MEMORY, 4096);
+
+        /**
+         * Maps up to 1 GiB of the file so hot reads come straight from the OS page cache without copying.
+         */
+        public static final PageCacheConfig READ_HEAVY_MMAP = new PageCacheConfig(1024L * 1024 * 1024, 2000, TempStore.MEMORY, 4096);
+    }
+
+    /**
+     * Caps the total time main-thread DB calls may take within a single server tick. {@link #mainThreadTimeout()}
+     * bounds one call; this bounds their sum. Once a tick's budget is spent, further main-thread calls in that tick
+     * follow {@code behavior}. Fresh cache hits cost no DB time and are always served.
+     *
+     * @param budgetPerTick Main-thread DB time allowed per tick. Zero or negative disables the budget
+     * @param behavior      What happens to main-thread calls once the budget is spent
+     */
+    public record TickBudgetConfig(
+            Duration budgetPerTick,
+            BudgetExhaustedBehavior behavior
+    ) {
+        public static TickBudgetConfig defaults() {
+            return new TickBudgetConfig(Duration.ZERO, BudgetExhaustedBehavior.THROW);
+        }
+
+        public boolean enabled() {
+            return budgetPerTick != null && !budgetPerTick.isZero() && !budgetPerTick.isNegative();
+        }
+    }
+
+    /**
+     * Cache warm-up settings, used by {@link SqliteDatabase#warmUp} and the {@link CacheWarmup} registry.
+     *
+     * @param awaitOnMainThread Whether a main-thread query for an entry that is still warming waits for the warm-up
+     *                          (bounded by {@link #mainThreadTimeout()}) instead of issuing its own blocking load
+     */
+    public record WarmupConfig(
+            boolean awaitOnMainThread
+    ) {
+        public static WarmupConfig defaults() {
+            return new WarmupConfig(true);
+        }
+    }
+
+    /**
+     * What happens to a DB call once nobody is waiting for it any more. Interrupting stops the running statement
+     * inside SQLite (via {@code sqlite3_interrupt}) so the DB thread is freed for the calls queued behind it; an
+     * interrupted transaction is rolled back.
+     *
+     * @param interruptOnTimeout Whether a main-thread call that hits {@link #mainThreadTimeout()} is interrupted
+     *                           rather than left to finish in the background
+     * @param backgroundTimeout  Deadline for calls made off the main thread (including the async variants), counted
+     *                           from when the call is made. Zero or negative means no deadline
+     */
+    public record CancellationConfig(
+            boolean interruptOnTimeout,
+            Duration backgroundTimeout
+    ) {
+        public static CancellationConfig defaults() {
+            return new CancellationConfig(true, Duration.ZERO);
+        }
+
+        public boolean hasBackgroundDeadline() {
+            return backgroundTimeout != null && !backgroundTimeout.isZero() && !backgroundTimeout.isNegative();
+        }
+    }
 }
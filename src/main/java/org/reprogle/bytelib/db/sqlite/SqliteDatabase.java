@@ -1,15 +1,19 @@
 package org.reprogle.bytelib.db.sqlite;
 
-import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.reprogle.bytelib.db.api.DataChange;
+import org.reprogle.bytelib.db.api.DataChangeListener;
 import org.reprogle.bytelib.db.api.Param;
 import org.reprogle.bytelib.db.api.Row;
 import org.reprogle.bytelib.db.api.RowMapper;
 import org.reprogle.bytelib.db.api.SqlType;
 import org.reprogle.bytelib.db.api.Table;
 import org.reprogle.bytelib.db.api.exceptions.DbMainThreadDisallowedException;
+import org.reprogle.bytelib.db.api.exceptions.DbTickBudgetExceededException;
 import org.reprogle.bytelib.db.api.exceptions.DbTimeoutException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -20,6 +24,8 @@ import java.sql.Statement;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -28,21 +34,51 @@ import java.util.StringJoiner;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @SuppressWarnings("unused")
 public final class SqliteDatabase implements AutoCloseable {
-    private final JavaPlugin plugin;
+    private static final Pattern RTREE_SHADOW_TABLE = Pattern.compile("(.+)_(?:node|rowid|parent)");
+
+    private final Logger logger;
+    private final ServerThread server;
     private final Path dbFile;
-    private final ExecutorService executor;
+    private final ThreadPoolExecutor executor;
     private final SqliteConfig config;
     private final SqliteQueryCache cache;
+    private final ScheduledExecutorService maintenance;
+    private final SqliteBackup backup;
+    private final SqliteMetrics metrics;
+    private final SqliteCheckpointer checkpointer;
+    private final MainThreadTickBudget tickBudget;
+
+    private final List<DataChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService watchdog;
     private volatile Thread dbThread;
+    private volatile WorkloadRecorder recorder;
+    // The blocking call the DB thread is running; only read and written on the DB thread
+    private DbCall activeCall;
+    // The DB thread's connection, kept open so its page cache and mmap window outlive a single call. Calls nested
+    // inside an open transaction get a short-lived connection of their own. Both only touched on the DB thread.
+    private TrackedConnection shared;
+    private boolean inTransaction;
+    private volatile boolean dbBusy;
+    private volatile long dbIdleSinceNanos = System.nanoTime();
 
     /**
      * Creates a new instance SqliteDatabase, creating a new Executor, new cache, and setting up the DB for use.
@@ -53,26 +89,65 @@ public final class SqliteDatabase implements AutoCloseable {
      * @param config The configuration for the SqliteDatabase.
      */
     public SqliteDatabase(JavaPlugin plugin, Path dbFile, SqliteConfig config) {
-        this.plugin = Objects.requireNonNull(plugin);
+        this(Objects.requireNonNull(plugin).getLogger(), dbFile, config, ServerThread.BUKKIT);
+    }
+
+    /**
+     * Creates a database that asks {@code server} instead of Bukkit about the main thread, so it can run without a
+     * server.
+     */
+    SqliteDatabase(Logger logger, Path dbFile, SqliteConfig config, ServerThread server) {
+        this.logger = Objects.requireNonNull(logger);
+        this.server = Objects.requireNonNull(server);
         this.dbFile = Objects.requireNonNull(dbFile);
         this.config = Objects.requireNonNull(config);
 
-        this.executor = Executors.newSingleThreadExecutor(r -> {
+        // Single DB thread, instrumented so housekeeping can tell when it is idle
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
             Thread t = new Thread(r, "bytelib-sqlite-" + dbFile.getFileName());
             t.setDaemon(true);
             return t;
-        });
+        }) {
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                dbBusy = true;
+            }
+
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                dbIdleSinceNanos = System.nanoTime();
+                dbBusy = false;
+            }
+        };
 
         this.cache = new SqliteQueryCache(config, executor);
 
+        // Backups (and other housekeeping) run here so they never queue behind, or in front of, DB thread work
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bytelib-sqlite-maint-" + dbFile.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        this.backup = new SqliteBackup(dbFile, config);
+        this.metrics = new SqliteMetrics(dbFile);
+        this.checkpointer = new SqliteCheckpointer(dbFile, config, metrics, this::runOnDbThread, logger);
+        this.tickBudget = new MainThreadTickBudget(config.tickBudget(), metrics);
+
+        // Deadlines get their own timer so a long backup on the maintenance thread cannot hold them up
+        this.watchdog = cancellation().hasBackgroundDeadline()
+                ? Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "bytelib-sqlite-watchdog-" + dbFile.getFileName());
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+
         initDbThread();
 
-        runOnDbThread(() -> {
-            try (Connection conn = openConnection()) {
-                applyPragmas(conn);
-            }
-            return null;
-        });
+        runOnDbThread(this::connection);
+
+        scheduleBackups();
+        scheduleCheckpoints();
     }
 
     // ----------------------
@@ -81,24 +156,81 @@ public final class SqliteDatabase implements AutoCloseable {
 
     public int execute(String sql, Param<?>... params) {
         Objects.requireNonNull(sql, "sql");
+        WorkloadRecorder rec = recorder;
+        if (rec == null) return executeUnrecorded(sql, params);
+
+        int origin = origin();
+        long tick = origin == WorkloadTrace.ORIGIN_MAIN ? server.currentTick() : 0;
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            int updated = executeUnrecorded(sql, params);
+            failed = false;
+            return updated;
+        } finally {
+            rec.execute(startNanos, System.nanoTime() - startNanos, origin, tick, failed, sql, params);
+        }
+    }
+
+    private int executeUnrecorded(String sql, Param<?>... params) {
         Integer result = blockingCall("execute", () ->
-                runSql(conn -> {
+                runSql((conn, changes) -> {
+                    long before = changes.updates();
                     try (PreparedStatement ps = conn.prepareStatement(sql)) {
                         bind(ps, params);
-                        return ps.executeUpdate();
+                        int updated = ps.executeUpdate();
+                        // Autocommit has already fired the commit hook; fall back to parsing the SQL only if the
+                        // hooks saw nothing (DDL, truncate-optimized deletes, WITHOUT ROWID tables)
+                        publishChanges(changes, changes.updates() == before ? sql : null);
+                        return updated;
                     }
                 })
         );
 
-        if (result == null) result = 0;
-        cache.invalidateForWrite(sql);
-        return result;
+        return result == null ? 0 : result;
     }
 
     public <T> List<T> query(String sql, RowMapper<T> mapper, Param<?>... params) {
         Objects.requireNonNull(sql, "sql");
         Objects.requireNonNull(mapper, "mapper");
-        return cache.query(sql, mapper, params, this::loadQueryBlocking);
+        WorkloadRecorder rec = recorder;
+        if (rec == null) return queryCached(sql, mapper, params, this::loadQueryBlocking);
+
+        int origin = origin();
+        long tick = origin == WorkloadTrace.ORIGIN_MAIN ? server.currentTick() : 0;
+        // A miss is a load run for this caller; background refreshes of a served entry still count as hits
+        Thread caller = Thread.currentThread();
+        boolean[] loaded = new boolean[1];
+        SqliteQueryCache.QueryLoader loader = new SqliteQueryCache.QueryLoader() {
+            @Override
+            public <R> List<R> load(String s, RowMapper<R> m, Param<?>... p) {
+                if (Thread.currentThread() == caller) loaded[0] = true;
+                return loadQueryBlocking(s, m, p);
+            }
+        };
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<T> result = queryCached(sql, mapper, params, loader);
+            failed = false;
+            return result;
+        } finally {
+            rec.query(startNanos, System.nanoTime() - startNanos, origin, tick, !loaded[0] && !failed, failed,
+                    sql, mapper, params);
+        }
+    }
+
+    private <T> List<T> queryCached(String sql, RowMapper<T> mapper, Param<?>[] params, SqliteQueryCache.QueryLoader loader) {
+        boolean main = server.isPrimaryThread();
+        if (main && tickBudget.exhausted(server.currentTick())) {
+            return queryOverBudget(sql, mapper, params);
+        }
+        if (Thread.currentThread() != dbThread) {
+            List<T> warmed = awaitWarmup(main, sql, mapper, params);
+            if (warmed != null) return warmed;
+        }
+        return cache.query(sql, mapper, params, loader);
     }
 
     public <T> T queryOne(String sql, RowMapper<T> mapper, Param<?>... params) {
@@ -114,6 +246,75 @@ public final class SqliteDatabase implements AutoCloseable {
         return CompletableFuture.supplyAsync(() -> query(sql, mapper, params), executor);
     }
 
+    public <T> CompletableFuture<T> transactionAsync(Transaction<T> work) {
+        return CompletableFuture.supplyAsync(() -> transaction(work), executor);
+    }
+
+    // ----------------------
+    // Cache warm-up
+    // ----------------------
+
+    /**
+     * Loads the given queries into the cache in the background. They run one after another on the DB thread like any
+     * other query, fed by a single warm-up thread so interactive queries can still slot in between them. Until an
+     * entry has loaded, queries for it wait on the warm-up rather than loading it a second time (on the main thread
+     * only if {@link SqliteConfig.WarmupConfig#awaitOnMainThread()} is set).
+     *
+     * @return A future completing once every entry has loaded or failed
+     */
+    public CompletableFuture<WarmupReport> warmUp(Collection<WarmupQuery<?>> queries) {
+        Objects.requireNonNull(queries, "queries");
+        ExecutorService pool = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "bytelib-sqlite-warmup-" + dbFile.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        List<CompletableFuture<List<?>>> futures = new ArrayList<>();
+        for (WarmupQuery<?> query : queries) {
+            for (Param<?>[] params : query.paramSets()) {
+                futures.add(warmOne(query, params, pool));
+            }
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, err) -> {
+                    pool.shutdown();
+                    int failed = (int) futures.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+                    long nanos = System.nanoTime() - start;
+                    metrics.recordWarmup(futures.size() - failed, nanos);
+                    return new WarmupReport(futures.size() - failed, failed, nanos);
+                });
+    }
+
+    public record WarmupReport(int loaded, int failed, long nanos) {
+    }
+
+    private <T> CompletableFuture<List<?>> warmOne(WarmupQuery<T> query, Param<?>[] params, Executor pool) {
+        return cache.warm(query.sql(), query.mapper(), params, this::loadQueryBlocking, pool);
+    }
+
+    private <T> List<T> awaitWarmup(boolean main, String sql, RowMapper<T> mapper, Param<?>[] params) {
+        if (!cache.isWarming()) return null;
+        SqliteConfig.WarmupConfig warmup = config.warmup();
+        if (main && (warmup == null || !warmup.awaitOnMainThread())) return null;
+
+        Duration timeout = main ? config.mainThreadTimeout() : null;
+        if (timeout != null && (timeout.isZero() || timeout.isNegative())) timeout = null;
+
+        long tick = main ? server.currentTick() : 0;
+        long startNanos = System.nanoTime();
+        try {
+            return cache.awaitWarmup(sql, mapper, params, timeout);
+        } catch (TimeoutException te) {
+            List<T> result = onTimeout("query", te);
+            return result == null ? List.of() : result;
+        } finally {
+            if (main) tickBudget.record(tick, System.nanoTime() - startNanos);
+        }
+    }
+
     // ----------------------
     // CRUD helpers
     // ----------------------
@@ -192,33 +393,65 @@ public final class SqliteDatabase implements AutoCloseable {
 
     public <T> T transaction(Transaction<T> work) {
         Objects.requireNonNull(work, "work");
+        WorkloadRecorder rec = recorder;
+        if (rec == null) return transaction(work, null);
+
+        int origin = origin();
+        long tick = origin == WorkloadTrace.ORIGIN_MAIN ? server.currentTick() : 0;
+        List<WorkloadRecorder.Statement> statements = Collections.synchronizedList(new ArrayList<>());
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = transaction(work, statements);
+            failed = false;
+            return result;
+        } finally {
+            rec.transaction(startNanos, System.nanoTime() - startNanos, origin, tick, failed, statements);
+        }
+    }
+
+    private <T> T transaction(Transaction<T> work, List<WorkloadRecorder.Statement> recorded) {
         return blockingCall("transaction", () -> {
-            try (Connection conn = openConnection()) {
-                applyPragmas(conn);
-
-                boolean prev = conn.getAutoCommit();
-                conn.setAutoCommit(false);
-
-                TxImpl tx = new TxImpl(conn);
-                boolean committed = false;
-                try {
-                    T result = work.run(tx);
-                    conn.commit();
-                    committed = true;
-                    return result;
-                } catch (Exception e) {
-                    conn.rollback();
-                    throw wrap(e);
-                } finally {
-                    conn.setAutoCommit(prev);
-                    if (committed) {
-                        cache.invalidateAfterTransaction(tx.touchedTables, tx.clearAllOnCommit);
-                    }
+            if (inTransaction) {
+                try (TrackedConnection tc = openConnection()) {
+                    applyPragmas(tc.conn());
+                    return onConnection(tc, (conn, changes) -> runTransaction(conn, changes, work, recorded));
                 }
             }
+            inTransaction = true;
+            try {
+                return onConnection(connection(), (conn, changes) -> runTransaction(conn, changes, work, recorded));
+            } finally {
+                inTransaction = false;
+            }
         });
     }
 
+    private <T> T runTransaction(Connection conn, SqliteChangeTracker changes, Transaction<T> work,
+                                 List<WorkloadRecorder.Statement> recorded) throws Exception {
+        boolean prev = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        TxImpl tx = new TxImpl(conn, changes, recorded);
+        boolean committed = false;
+        try {
+            T result = work.run(tx);
+            throwIfCancelled();
+            conn.commit();
+            committed = true;
+            return result;
+        } catch (Exception e) {
+            conn.rollback();
+            throw wrap(e);
+        } finally {
+            conn.setAutoCommit(prev);
+            if (committed) {
+                cache.invalidateAfterTransaction(tx.touchedTables, tx.clearAllOnCommit);
+                publishChanges(changes, null);
+            }
+        }
+    }
+
     public interface Tx {
         @SuppressWarnings("UnusedReturnValue")
         int execute(String sql, Param<?>... params);
@@ -233,35 +466,217 @@ public final class SqliteDatabase implements AutoCloseable {
         T run(Tx tx) throws Exception;
     }
 
+    // ----------------------
+    // Change feed
+    // ----------------------
+
+    /**
+     * Subscribes to committed data changes. Changes are reported by SQLite's own hooks, so they cover every write made
+     * through this database, including trigger side effects and cascading deletes.
+     *
+     * @return A handle that unsubscribes the listener when run
+     */
+    public Runnable onChange(DataChangeListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        changeListeners.add(listener);
+        return () -> changeListeners.remove(listener);
+    }
+
+    /**
+     * Invalidates exactly the tables the last commit on {@code changes}' connection touched and notifies change
+     * listeners. Runs on the DB thread.
+     *
+     * @param fallbackSql SQL to derive the table from when the hooks reported nothing, or null
+     */
+    private void publishChanges(SqliteChangeTracker changes, String fallbackSql) {
+        SqliteChangeTracker.Committed committed = changes.drain();
+        if (fallbackSql != null) {
+            cache.invalidateForWrite(fallbackSql);
+        }
+        for (String table : committed.tables()) {
+            cache.invalidateTable(table);
+            // Writes to an R*Tree are reported against its shadow tables, not the virtual table queries name
+            Matcher shadow = RTREE_SHADOW_TABLE.matcher(table);
+            if (shadow.matches()) cache.invalidateTable(shadow.group(1));
+        }
+
+        List<DataChange> rows = committed.changes();
+        if (rows.isEmpty()) return;
+        for (DataChangeListener listener : changeListeners) {
+            try {
+                listener.onCommit(rows);
+            } catch (RuntimeException e) {
+                logger.warning("[ByteLib-DB] Change listener " + listener + " failed: " + e);
+            }
+        }
+    }
+
+    // ----------------------
+    // Workload recording
+    // ----------------------
+
+    /**
+     * Starts writing every query, execute, and transaction made through this database to {@code traceFile}, along
+     * with its parameters, timing, cache outcome, and calling thread. Replay the trace against a copy of the database
+     * with {@link WorkloadReplayer} to compare configurations offline.
+     *
+     * @throws IllegalStateException If a recording is already running
+     */
+    public synchronized void startRecording(Path traceFile) {
+        Objects.requireNonNull(traceFile, "traceFile");
+        if (recorder != null) throw new IllegalStateException("Already recording to " + recorder.file());
+        try {
+            recorder = WorkloadRecorder.open(traceFile, logger);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start workload recording to " + traceFile, e);
+        }
+        logger.info("[ByteLib-DB] Recording workload of " + dbFile.getFileName() + " to " + traceFile);
+    }
+
+    /**
+     * Stops the current recording and flushes the trace.
+     *
+     * @return The trace file, or null if nothing was being recorded
+     */
+    public synchronized Path stopRecording() {
+        WorkloadRecorder rec = recorder;
+        if (rec == null) return null;
+        recorder = null;
+        rec.close();
+        return rec.file();
+    }
+
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
+    boolean onMainThread() {
+        return server.isPrimaryThread();
+    }
+
+    private int origin() {
+        if (server.isPrimaryThread()) return WorkloadTrace.ORIGIN_MAIN;
+        return Thread.currentThread() == dbThread ? WorkloadTrace.ORIGIN_DB : WorkloadTrace.ORIGIN_OTHER;
+    }
+
+    // ----------------------
+    // Backups
+    // ----------------------
+
+    /**
+     * Takes an online backup of this database. The copy is read from its own connection on ByteLib's maintenance
+     * thread, so it neither blocks the DB thread nor waits behind queued queries. Writes keep flowing while it runs.
+     *
+     * @param target The file to write. It is replaced atomically once the copy is complete
+     * @return A future completing with the absolute path of the finished backup
+     */
+    public CompletableFuture<Path> backupTo(Path target) {
+        Objects.requireNonNull(target, "target");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return backup.copyTo(target);
+            } catch (Exception e) {
+                throw wrap(e);
+            }
+        }, maintenance);
+    }
+
+    private void scheduleBackups() {
+        SqliteConfig.BackupConfig cfg = config.backup();
+        if (cfg == null || !cfg.enabled()) return;
+
+        long periodMs = cfg.interval().toMillis();
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                Path written = backup.rotate();
+                logger.info("[ByteLib-DB] Backup written to " + written);
+            } catch (Exception e) {
+                logger.warning("[ByteLib-DB] Scheduled backup of " + dbFile.getFileName() + " failed: " + e);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ----------------------
+    // WAL checkpoints + metrics
+    // ----------------------
+
+    /**
+     * Runs a WAL checkpoint now, on the DB thread. Mostly useful before taking file-level copies or after bulk loads;
+     * routine checkpoints are scheduled automatically when {@link SqliteConfig.CheckpointConfig#managed()} is set.
+     *
+     * @return true if the checkpoint completed, false if readers or writers kept it from finishing
+     */
+    public boolean checkpoint(SqliteConfig.CheckpointMode mode) {
+        Objects.requireNonNull(mode, "mode");
+        return checkpointer.checkpointOnDbThread(mode);
+    }
+
+    public SqliteMetrics.Snapshot metrics() {
+        return metrics.snapshot();
+    }
+
+    private void scheduleCheckpoints() {
+        if (!checkpointer.enabled()) return;
+
+        long periodMs = Math.max(1, config.checkpoint().interval().toMillis());
+        maintenance.execute(checkpointer::start);
+        maintenance.scheduleWithFixedDelay(() -> checkpointer.tick(idleNanos()), periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long idleNanos() {
+        if (dbBusy || !executor.getQueue().isEmpty()) return -1;
+        return System.nanoTime() - dbIdleSinceNanos;
+    }
+
     // ----------------------
     // Guarding + blocking core
     // ----------------------
 
     private <T> T blockingCall(String opName, Callable<T> call) throws RuntimeException {
-        boolean main = Bukkit.isPrimaryThread();
+        boolean main = server.isPrimaryThread();
+        long tick = 0;
         if (main) {
             switch (config.mainThreadPolicy()) {
                 case DISALLOW -> throw new DbMainThreadDisallowedException("DB " + opName + " called on main thread");
                 case WARN, ALLOW -> {
                 }
             }
+
+            tick = server.currentTick();
+            if (tickBudget.exhausted(tick)) {
+                return onBudgetExhausted(opName, tick);
+            }
+        }
+
+        // A call made from inside another call on the DB thread runs under the outer call's deadline
+        if (Thread.currentThread() == dbThread && activeCall != null) {
+            return runOnDbThread(call);
         }
 
         long startNanos = System.nanoTime();
+        DbCall handle = new DbCall(opName);
+        Callable<T> tracked = tracked(handle, call);
         try {
             Duration timeout = main ? config.mainThreadTimeout() : null;
             if (timeout == null || timeout.isZero() || timeout.isNegative()) {
-                T result = runOnDbThread(call);
+                T result = main ? runOnDbThread(tracked) : runWithDeadline(handle, tracked);
                 logSlowIfNeeded(main, opName, startNanos);
                 return result;
             }
 
-            Future<T> f = executor.submit(call);
+            Future<T> f = executor.submit(tracked);
             try {
                 T result = f.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
                 logSlowIfNeeded(true, opName, startNanos);
                 return result;
             } catch (TimeoutException te) {
+                metrics.recordTimeout(false);
+                // Interrupting the Java thread does not stop SQLite; without this the DB thread would keep running
+                // a statement nobody is waiting for while everything else queues behind it
+                if (cancellation().interruptOnTimeout()
+                        && handle.cancel("abandoned after main-thread timeout of " + timeout.toMillis() + "ms")) {
+                    metrics.recordCancellation(handle.started());
+                }
                 f.cancel(true);
                 return onTimeout(opName, te);
             }
@@ -269,6 +684,107 @@ public final class SqliteDatabase implements AutoCloseable {
             throw re;
         } catch (Exception e) {
             throw wrap(e);
+        } finally {
+            if (main) tickBudget.record(tick, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Wraps a blocking call so the DB thread publishes it as {@link #activeCall} while it runs. A call cancelled while
+     * still queued is refused, and failures caused by the cancellation surface as {@link DbTimeoutException}.
+     */
+    private <T> Callable<T> tracked(DbCall handle, Callable<T> call) {
+        return () -> {
+            handle.throwIfCancelled();
+            DbCall outer = activeCall;
+            activeCall = handle;
+            handle.markStarted();
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (handle.cancelled() && !(e instanceof DbTimeoutException)) throw handle.timedOut(e);
+                throw e;
+            } finally {
+                activeCall = outer;
+                handle.markFinished();
+            }
+        };
+    }
+
+    private <T> T runWithDeadline(DbCall handle, Callable<T> call) {
+        SqliteConfig.CancellationConfig cancellation = cancellation();
+        if (watchdog == null || !cancellation.hasBackgroundDeadline()) return runOnDbThread(call);
+
+        long deadlineMs = cancellation.backgroundTimeout().toMillis();
+        ScheduledFuture<?> timer;
+        try {
+            timer = watchdog.schedule(() -> {
+                if (handle.cancel("exceeded background deadline of " + deadlineMs + "ms")) {
+                    metrics.recordTimeout(true);
+                    metrics.recordCancellation(handle.started());
+                }
+            }, deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException closing) {
+            return runOnDbThread(call);
+        }
+
+        try {
+            return runOnDbThread(call);
+        } finally {
+            timer.cancel(false);
+        }
+    }
+
+    private SqliteConfig.CancellationConfig cancellation() {
+        return config.cancellation();
+    }
+
+    /**
+     * Lets the active call interrupt {@code conn}. Pair with {@link #detachFromCall} before the connection closes.
+     */
+    private Connection attachToCall(Connection conn) {
+        DbCall call = activeCall;
+        if (call == null) return null;
+        Connection previous = call.attach(conn);
+        call.throwIfCancelled();
+        return previous;
+    }
+
+    private void detachFromCall(Connection previous) {
+        DbCall call = activeCall;
+        if (call != null) call.detach(previous);
+    }
+
+    private void throwIfCancelled() {
+        DbCall call = activeCall;
+        if (call != null) call.throwIfCancelled();
+    }
+
+    private <T> List<T> queryOverBudget(String sql, RowMapper<T> mapper, Param<?>[] params) {
+        boolean serveStale = tickBudget.behavior() == SqliteConfig.BudgetExhaustedBehavior.SERVE_STALE;
+        List<T> cached = cache.peek(sql, mapper, params, serveStale);
+        if (cached != null) return cached;
+
+        List<T> result = onBudgetExhausted("query", server.currentTick());
+        return result == null ? List.of() : result;
+    }
+
+    private <T> T onBudgetExhausted(String opName, long tick) {
+        metrics.recordBudgetRejection();
+        SqliteConfig.BudgetExhaustedBehavior behavior = tickBudget.behavior();
+        // Only reads may be skipped; a write that silently never ran would lose data
+        if (behavior == SqliteConfig.BudgetExhaustedBehavior.FAIL_OPEN && !opName.equals("query")) {
+            behavior = SqliteConfig.BudgetExhaustedBehavior.THROW;
+        }
+        switch (behavior) {
+            case FAIL_OPEN -> {
+                return null;
+            }
+            case SERVE_STALE, THROW ->
+                    throw new DbTickBudgetExceededException("DB " + opName + " skipped: main-thread budget of "
+                            + config.tickBudget().budgetPerTick().toMillis() + "ms for this tick is spent ("
+                            + TimeUnit.NANOSECONDS.toMillis(tickBudget.usedNanos(tick)) + "ms used)");
+            default -> throw new DbTickBudgetExceededException("DB " + opName + " skipped: tick budget spent");
         }
     }
 
@@ -291,7 +807,7 @@ public final class SqliteDatabase implements AutoCloseable {
 
         long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
         if (elapsedMs >= config.slowQueryWarnThreshold().toMillis()) {
-            plugin.getLogger().warning("[ByteLib-DB] Slow main-thread DB " + opName + ": " + elapsedMs + "ms");
+            logger.warning("[ByteLib-DB] Slow main-thread DB " + opName + ": " + elapsedMs + "ms");
         }
     }
 
@@ -299,8 +815,43 @@ public final class SqliteDatabase implements AutoCloseable {
     // JDBC internals
     // ----------------------
 
-    private Connection openConnection() throws SQLException {
-        return DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+    /**
+     * The DB thread's long-lived connection, opened (and the page size and pragmas applied) on first use or after it
+     * was lost.
+     */
+    private TrackedConnection connection() throws SQLException {
+        if (shared != null && !shared.conn().isClosed()) return shared;
+
+        TrackedConnection tc = openConnection();
+        try {
+            applyPageSize(tc.conn());
+            applyPragmas(tc.conn());
+        } catch (SQLException e) {
+            tc.close();
+            throw e;
+        }
+        return shared = tc;
+    }
+
+    /**
+     * Opens a connection with its own change tracker, so a call nested inside another on the DB thread can neither
+     * clear nor publish the outer call's pending changes.
+     */
+    private TrackedConnection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        SqliteChangeTracker changes = new SqliteChangeTracker(() -> !changeListeners.isEmpty());
+        changes.attach(conn);
+        return new TrackedConnection(conn, changes);
+    }
+
+    private void closeConnection() {
+        if (shared == null) return;
+        try {
+            shared.close();
+        } catch (SQLException ignored) {
+            // closing anyway
+        }
+        shared = null;
     }
 
     private void applyPragmas(Connection conn) throws SQLException {
@@ -309,18 +860,61 @@ public final class SqliteDatabase implements AutoCloseable {
             st.execute("PRAGMA busy_timeout=" + config.busyTimeoutMs() + ";");
             st.execute("PRAGMA journal_mode=" + config.journalMode() + ";");
             st.execute("PRAGMA synchronous=" + config.synchronous() + ";");
+
+            SqliteConfig.PageCacheConfig pageCache = config.pageCache();
+            if (pageCache != null) {
+                st.execute("PRAGMA mmap_size=" + Math.max(0L, pageCache.mmapSizeBytes()) + ";");
+                // Negative cache_size is interpreted as KiB rather than pages
+                st.execute("PRAGMA cache_size=-" + Math.max(0, pageCache.cacheSizeKib()) + ";");
+                if (pageCache.tempStore() != null) {
+                    st.execute("PRAGMA temp_store=" + pageCache.tempStore().name() + ";");
+                }
+            }
+
+            if (checkpointer.enabled()) {
+                st.execute("PRAGMA wal_autocheckpoint=" + Math.max(0, config.checkpoint().autoCheckpointPages()) + ";");
+            }
+        }
+    }
+
+    /**
+     * page_size can only change before the first table is written (and never once the file is in WAL mode), so it is
+     * only applied to empty databases, ahead of journal_mode.
+     */
+    private void applyPageSize(Connection conn) throws SQLException {
+        SqliteConfig.PageCacheConfig pageCache = config.pageCache();
+        if (pageCache == null || pageCache.pageSize() <= 0) return;
+
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("PRAGMA page_count;")) {
+                if (rs.next() && rs.getLong(1) > 0) return;
+            }
+            st.execute("PRAGMA page_size=" + pageCache.pageSize() + ";");
         }
     }
 
     private <T> T runSql(SqlWork<T> work) throws RuntimeException {
         return runOnDbThread(() -> {
-            try (Connection conn = openConnection()) {
-                applyPragmas(conn);
-                return work.run(conn);
+            // The shared connection is inside the transaction; running on it would make this call part of it
+            if (inTransaction) {
+                try (TrackedConnection tc = openConnection()) {
+                    applyPragmas(tc.conn());
+                    return onConnection(tc, work);
+                }
             }
+            return onConnection(connection(), work);
         });
     }
 
+    private <T> T onConnection(TrackedConnection tc, SqlWork<T> work) throws Exception {
+        Connection outerConn = attachToCall(tc.conn());
+        try {
+            return work.run(tc.conn(), tc.changes());
+        } finally {
+            detachFromCall(outerConn);
+        }
+    }
+
     private <T> T runOnDbThread(Callable<T> work) {
         try {
             if (Thread.currentThread() == dbThread) {
@@ -358,7 +952,14 @@ public final class SqliteDatabase implements AutoCloseable {
 
     @FunctionalInterface
     private interface SqlWork<T> {
-        T run(Connection conn) throws Exception;
+        T run(Connection conn, SqliteChangeTracker changes) throws Exception;
+    }
+
+    private record TrackedConnection(Connection conn, SqliteChangeTracker changes) implements AutoCloseable {
+        @Override
+        public void close() throws SQLException {
+            conn.close();
+        }
     }
 
     private void initDbThread() {
@@ -378,7 +979,7 @@ public final class SqliteDatabase implements AutoCloseable {
     }
 
     private <T> List<T> loadQuery(String sql, RowMapper<T> mapper, Param<?>... params) throws RuntimeException {
-        return runSql(conn -> queryOnConnection(conn, sql, mapper, params));
+        return runSql((conn, changes) -> queryOnConnection(conn, sql, mapper, params));
     }
 
     private <T> List<T> queryOnConnection(Connection conn, String sql, RowMapper<T> mapper, Param<?>... params) throws Exception {
@@ -399,19 +1000,29 @@ public final class SqliteDatabase implements AutoCloseable {
 
     private final class TxImpl implements Tx {
         private final Connection conn;
+        private final SqliteChangeTracker changes;
         private final Set<String> touchedTables = ConcurrentHashMap.newKeySet();
+        // Non-null while recording a workload
+        private final List<WorkloadRecorder.Statement> recorded;
         private boolean clearAllOnCommit;
 
-        private TxImpl(Connection conn) {
+        private TxImpl(Connection conn, SqliteChangeTracker changes, List<WorkloadRecorder.Statement> recorded) {
             this.conn = conn;
+            this.changes = changes;
+            this.recorded = recorded;
         }
 
         @Override
         public int execute(String sql, Param<?>... params) {
-            recordTable(sql);
+            throwIfCancelled();
+            if (recorded != null) recorded.add(new WorkloadRecorder.Statement(false, sql, null, params));
+            long before = changes.updates();
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 bind(ps, params);
-                return ps.executeUpdate();
+                int updated = ps.executeUpdate();
+                // Tables the hooks saw are invalidated on commit; only guess from the SQL for what they missed
+                if (changes.updates() == before) recordTable(sql);
+                return updated;
             } catch (Exception e) {
                 throw wrap(e);
             }
@@ -419,6 +1030,8 @@ public final class SqliteDatabase implements AutoCloseable {
 
         @Override
         public <T> List<T> query(String sql, RowMapper<T> mapper, Param<?>... params) {
+            throwIfCancelled();
+            if (recorded != null) recorded.add(new WorkloadRecorder.Statement(true, sql, mapper, params));
             try {
                 return queryOnConnection(conn, sql, mapper, params);
             } catch (Exception e) {
@@ -444,6 +1057,20 @@ public final class SqliteDatabase implements AutoCloseable {
 
     @Override
     public void close() {
+        if (checkpointer.enabled() && !executor.isShutdown()) {
+            try {
+                checkpointer.checkpointOnDbThread(SqliteConfig.CheckpointMode.TRUNCATE);
+            } catch (RuntimeException e) {
+                logger.warning("[ByteLib-DB] Final WAL checkpoint of " + dbFile.getFileName() + " failed: " + e);
+            }
+        }
+        stopRecording();
+        if (watchdog != null) watchdog.shutdownNow();
+        if (!maintenance.isShutdown()) {
+            maintenance.execute(checkpointer::close);
+            maintenance.shutdown();
+        }
+        if (!executor.isShutdown()) executor.execute(this::closeConnection);
         executor.shutdown();
     }
 }
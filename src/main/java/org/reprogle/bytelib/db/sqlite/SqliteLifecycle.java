@@ -0,0 +1,23 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import com.google.inject.Inject;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
+
+/**
+ * Closes the {@link SqliteDatabase} when the plugin disables, which runs the final {@code TRUNCATE} checkpoint and
+ * lets queued writes finish. Lifecycles that use the database in {@code onDisable} should
+ * {@link PluginLifecycle#dependsOn() depend on} this one so they run before it closes.
+ */
+public final class SqliteLifecycle implements PluginLifecycle {
+    private final SqliteDatabase db;
+
+    @Inject
+    public SqliteLifecycle(SqliteDatabase db) {
+        this.db = db;
+    }
+
+    @Override
+    public void onDisable() {
+        db.close();
+    }
+}
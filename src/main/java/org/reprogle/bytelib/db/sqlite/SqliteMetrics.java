@@ -0,0 +1,155 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters kept by a {@link SqliteDatabase}. Recording is lock-free and cheap enough for hot paths; read a consistent
+ * view with {@link #snapshot()}.
+ */
+public final class SqliteMetrics {
+    /**
+     * Upper bounds (inclusive, in microseconds) of the per-tick main-thread DB time histogram buckets. The last
+     * bucket catches everything above the previous bound.
+     */
+    public static final List<Long> TICK_USAGE_BUCKETS_MICROS = List.of(
+            250L, 500L, 1_000L, 2_000L, 5_000L, 10_000L, 20_000L, 50_000L, Long.MAX_VALUE
+    );
+
+    private final Path walFile;
+
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder checkpointsBusy = new LongAdder();
+    private final LongAdder checkpointNanosTotal = new LongAdder();
+    private final AtomicLong checkpointNanosMax = new AtomicLong();
+    private volatile long lastCheckpointNanos;
+    private volatile long lastCheckpointAtMillis;
+    private volatile SqliteConfig.CheckpointMode lastCheckpointMode;
+
+    private final LongAdder[] tickUsage = new LongAdder[TICK_USAGE_BUCKETS_MICROS.size()];
+    private final LongAdder ticksOverBudget = new LongAdder();
+    private final LongAdder budgetRejections = new LongAdder();
+    private final AtomicLong tickUsageMaxNanos = new AtomicLong();
+
+    private volatile long lastWarmupNanos;
+    private volatile int lastWarmupEntries;
+
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder backgroundTimeouts = new LongAdder();
+    private final LongAdder interrupted = new LongAdder();
+    private final LongAdder droppedWhileQueued = new LongAdder();
+
+    SqliteMetrics(Path dbFile) {
+        this.walFile = dbFile.resolveSibling(dbFile.getFileName() + "-wal");
+        for (int i = 0; i < tickUsage.length; i++) tickUsage[i] = new LongAdder();
+    }
+
+    void recordCheckpoint(SqliteConfig.CheckpointMode mode, long nanos, boolean busy) {
+        checkpoints.increment();
+        if (busy) checkpointsBusy.increment();
+        checkpointNanosTotal.add(nanos);
+        checkpointNanosMax.accumulateAndGet(nanos, Math::max);
+        lastCheckpointNanos = nanos;
+        lastCheckpointAtMillis = System.currentTimeMillis();
+        lastCheckpointMode = mode;
+    }
+
+    void recordTickUsage(long nanos, boolean overBudget) {
+        long micros = nanos / 1_000;
+        for (int i = 0; i < tickUsage.length; i++) {
+            if (micros <= TICK_USAGE_BUCKETS_MICROS.get(i)) {
+                tickUsage[i].increment();
+                break;
+            }
+        }
+        if (overBudget) ticksOverBudget.increment();
+        tickUsageMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordBudgetRejection() {
+        budgetRejections.increment();
+    }
+
+    void recordWarmup(int entries, long nanos) {
+        lastWarmupEntries = entries;
+        lastWarmupNanos = nanos;
+    }
+
+    void recordTimeout(boolean background) {
+        (background ? backgroundTimeouts : timeouts).increment();
+    }
+
+    /**
+     * @param running Whether the call was already running (and got interrupted) or still waiting in the queue
+     */
+    void recordCancellation(boolean running) {
+        (running ? interrupted : droppedWhileQueued).increment();
+    }
+
+    /**
+     * Current size of the write-ahead log on disk, or 0 if there is none.
+     */
+    public long walSizeBytes() {
+        try {
+            return Files.exists(walFile) ? Files.size(walFile) : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(
+                walSizeBytes(),
+                checkpoints.sum(),
+                checkpointsBusy.sum(),
+                checkpointNanosTotal.sum(),
+                checkpointNanosMax.get(),
+                lastCheckpointNanos,
+                lastCheckpointAtMillis,
+                lastCheckpointMode,
+                Arrays.stream(tickUsage).map(LongAdder::sum).toList(),
+                tickUsageMaxNanos.get(),
+                ticksOverBudget.sum(),
+                budgetRejections.sum(),
+                lastWarmupEntries,
+                lastWarmupNanos,
+                timeouts.sum(),
+                backgroundTimeouts.sum(),
+                interrupted.sum(),
+                droppedWhileQueued.sum()
+        );
+    }
+
+    /**
+     * Point-in-time view of the metrics. Durations are in nanoseconds, timestamps in epoch millis.
+     * {@code tickUsageCounts} lines up with {@link #TICK_USAGE_BUCKETS_MICROS} and only counts ticks in which the
+     * main thread spent any time in the database. {@code interrupted} counts timed-out calls stopped mid-statement,
+     * {@code droppedWhileQueued} those cancelled before the DB thread got to them.
+     */
+    public record Snapshot(
+            long walSizeBytes,
+            long checkpoints,
+            long checkpointsBusy,
+            long checkpointNanosTotal,
+            long checkpointNanosMax,
+            long lastCheckpointNanos,
+            long lastCheckpointAtMillis,
+            SqliteConfig.CheckpointMode lastCheckpointMode,
+            List<Long> tickUsageCounts,
+            long tickUsageMaxNanos,
+            long ticksOverBudget,
+            long budgetRejections,
+            int lastWarmupEntries,
+            long lastWarmupNanos,
+            long timeouts,
+            long backgroundTimeouts,
+            long interrupted,
+            long droppedWhileQueued
+    ) {
+    }
+}
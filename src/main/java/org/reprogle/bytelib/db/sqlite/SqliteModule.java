@@ -3,7 +3,9 @@ package org.reprogle.bytelib.db.sqlite;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;
 
 import java.nio.file.Path;
 import java.util.Objects;
@@ -21,6 +23,16 @@ public final class SqliteModule extends AbstractModule {
         this.config = Objects.requireNonNull(config, "config");
     }
 
+    @Override
+    protected void configure() {
+        // Allow plugins to contribute cache warm-up queries
+        Multibinder.newSetBinder(binder(), CacheWarmup.class);
+
+        Multibinder<PluginLifecycle> lifecycles = Multibinder.newSetBinder(binder(), PluginLifecycle.class);
+        lifecycles.addBinding().to(SqliteLifecycle.class);
+        lifecycles.addBinding().to(CacheWarmupLifecycle.class);
+    }
+
     @Provides
     @Singleton
     public SqliteConfig sqliteConfig() {
@@ -13,18 +13,22 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 final class SqliteQueryCache {
-    private static final Pattern INSERT_TABLE = Pattern.compile("(?i)\\binsert\\s+into\\s+([\\w_.]+)");
+    private static final Pattern INSERT_TABLE = Pattern.compile("(?i)\\b(?:insert(?:\\s+or\\s+\\w+)?|replace)\\s+into\\s+([\\w_.]+)");
     private static final Pattern UPDATE_TABLE = Pattern.compile("(?i)\\bupdate\\s+([\\w_.]+)");
     private static final Pattern DELETE_TABLE = Pattern.compile("(?i)\\bdelete\\s+from\\s+([\\w_.]+)");
 
     private final SqliteConfig config;
     private final Executor executor;
     private final ConcurrentHashMap<QueryKey, CacheEntry> queryCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<QueryKey, CompletableFuture<List<?>>> warming = new ConcurrentHashMap<>();
 
     SqliteQueryCache(SqliteConfig config, Executor executor) {
         this.config = Objects.requireNonNull(config, "config");
@@ -61,6 +65,71 @@ final class SqliteQueryCache {
         return loaded;
     }
 
+    /**
+     * Loads an entry ahead of use. The entry is marked as warming immediately, so {@link #awaitWarmup} can find it
+     * even while the load is still queued on {@code warmExecutor}.
+     */
+    <T> CompletableFuture<List<?>> warm(String sql, RowMapper<T> mapper, Param<?>[] params, QueryLoader loader, Executor warmExecutor) {
+        QueryKey key = QueryKey.of(sql, mapper, params);
+        CompletableFuture<List<?>> future = new CompletableFuture<>();
+        CompletableFuture<List<?>> existing = warming.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        warmExecutor.execute(() -> {
+            try {
+                List<T> loaded = load(loader, sql, mapper, params);
+                if (config.cache().maxSize() > 0) {
+                    queryCache.put(key, CacheEntry.fresh(loaded, System.nanoTime()));
+                    evictIfNeeded();
+                }
+                future.complete(loaded);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                warming.remove(key, future);
+            }
+        });
+        return future;
+    }
+
+    boolean isWarming() {
+        return !warming.isEmpty();
+    }
+
+    /**
+     * Waits for an in-flight warm-up of this exact query.
+     *
+     * @return the warmed result, or null if the query is not warming or its warm-up failed
+     * @throws TimeoutException if the warm-up did not finish within {@code timeout}
+     */
+    <T> List<T> awaitWarmup(String sql, RowMapper<T> mapper, Param<?>[] params, Duration timeout) throws TimeoutException {
+        CompletableFuture<List<?>> future = warming.get(QueryKey.of(sql, mapper, params));
+        if (future == null) return null;
+
+        try {
+            List<?> result = timeout == null ? future.get() : future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return castList(result);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cached result without loading or refreshing anything, or null if there is none.
+     *
+     * @param allowExpired Whether entries past their TTL may be returned
+     */
+    <T> List<T> peek(String sql, RowMapper<T> mapper, Param<?>[] params, boolean allowExpired) {
+        if (config.cache().maxSize() <= 0) return null;
+        CacheEntry cached = queryCache.get(QueryKey.of(sql, mapper, params));
+        if (cached == null) return null;
+        if (!allowExpired && cached.isExpired(System.nanoTime(), config.cache().ttl())) return null;
+        return castList(cached.value);
+    }
+
     void invalidateForWrite(String sql) {
         String table = extractTableName(sql);
         if (table == null) {
@@ -0,0 +1,30 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.api.RowMapper;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A query to load into the cache ahead of time, once per parameter set.
+ * <p>
+ * Cache entries are keyed by SQL, parameters, <em>and</em> mapper instance, so the mapper here must be the same
+ * instance the plugin later queries with (typically a {@code static final} field). A fresh lambda per call would
+ * warm entries nobody reads.
+ */
+public record WarmupQuery<T>(String sql, RowMapper<T> mapper, List<Param<?>[]> paramSets) {
+    public WarmupQuery {
+        Objects.requireNonNull(sql, "sql");
+        Objects.requireNonNull(mapper, "mapper");
+        paramSets = paramSets == null || paramSets.isEmpty() ? List.<Param<?>[]>of(new Param<?>[0]) : List.copyOf(paramSets);
+    }
+
+    public static <T> WarmupQuery<T> of(String sql, RowMapper<T> mapper, Param<?>... params) {
+        return new WarmupQuery<>(sql, mapper, List.<Param<?>[]>of(params));
+    }
+
+    public static <T> WarmupQuery<T> forEach(String sql, RowMapper<T> mapper, List<Param<?>[]> paramSets) {
+        return new WarmupQuery<>(sql, mapper, paramSets);
+    }
+}
@@ -0,0 +1,156 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.api.RowMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Writes the calls made against a {@link SqliteDatabase} to a {@link WorkloadTrace} file while recording is on.
+ * <p>
+ * Parameter values are written as-is so the trace replays the same cache keys; treat trace files like the database
+ * itself. Mappers are numbered the way the query cache tells them apart (by {@code equals}, which for lambdas means
+ * identity), so a replay sees the same hits and misses. A write error stops the recording rather than failing the
+ * database call that triggered it.
+ */
+final class WorkloadRecorder implements Closeable {
+    private final Path file;
+    private final Logger logger;
+    private final WorkloadTrace.Writer out;
+    private final long startNanos = System.nanoTime();
+    private final Map<RowMapper<?>, Integer> mapperIds = new WeakHashMap<>();
+    private int nextMapperId;
+    private long records;
+    private boolean stopped;
+
+    /**
+     * A statement run inside a recorded transaction. {@code mapper} is null for writes.
+     */
+    record Statement(boolean query, String sql, RowMapper<?> mapper, Param<?>[] params) {
+    }
+
+    private WorkloadRecorder(Path file, Logger logger, WorkloadTrace.Writer out) {
+        this.file = file;
+        this.logger = logger;
+        this.out = out;
+    }
+
+    static WorkloadRecorder open(Path file, Logger logger) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return new WorkloadRecorder(file, logger, new WorkloadTrace.Writer(Files.newOutputStream(file), System.currentTimeMillis()));
+    }
+
+    Path file() {
+        return file;
+    }
+
+    synchronized void query(long startedNanos, long durationNanos, int origin, long tick, boolean hit, boolean failed,
+                            String sql, RowMapper<?> mapper, Param<?>[] params) {
+        if (stopped) return;
+        try {
+            int sqlId = out.sql(sql);
+            out.header(WorkloadTrace.QUERY, offsetMicros(startedNanos), durationNanos, flags(origin, hit, failed), tick);
+            out.writeVarLong(sqlId);
+            out.writeVarLong(mapperId(mapper));
+            out.writeParams(params);
+            records++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    synchronized void execute(long startedNanos, long durationNanos, int origin, long tick, boolean failed,
+                              String sql, Param<?>[] params) {
+        if (stopped) return;
+        try {
+            int sqlId = out.sql(sql);
+            out.header(WorkloadTrace.EXECUTE, offsetMicros(startedNanos), durationNanos, flags(origin, false, failed), tick);
+            out.writeVarLong(sqlId);
+            out.writeParams(params);
+            records++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @param statements Filled by the DB thread; copied under its own lock since a timed-out transaction may still be
+     *                   running
+     */
+    synchronized void transaction(long startedNanos, long durationNanos, int origin, long tick, boolean failed,
+                                  List<Statement> statements) {
+        if (stopped) return;
+        List<Statement> copy;
+        synchronized (statements) {
+            copy = new ArrayList<>(statements);
+        }
+        try {
+            int[] sqlIds = new int[copy.size()];
+            for (int i = 0; i < sqlIds.length; i++) sqlIds[i] = out.sql(copy.get(i).sql());
+
+            out.header(WorkloadTrace.TRANSACTION, offsetMicros(startedNanos), durationNanos, flags(origin, false, failed), tick);
+            out.writeVarLong(copy.size());
+            for (int i = 0; i < sqlIds.length; i++) {
+                Statement st = copy.get(i);
+                out.writeByte(st.query() ? WorkloadTrace.STMT_QUERY : WorkloadTrace.STMT_EXECUTE);
+                out.writeVarLong(sqlIds[i]);
+                if (st.query()) out.writeVarLong(mapperId(st.mapper()));
+                out.writeParams(st.params());
+            }
+            records++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private long offsetMicros(long startedNanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(startedNanos - startNanos));
+    }
+
+    private static int flags(int origin, boolean hit, boolean failed) {
+        int flags = origin & WorkloadTrace.ORIGIN_MASK;
+        if (hit) flags |= WorkloadTrace.FLAG_HIT;
+        if (failed) flags |= WorkloadTrace.FLAG_FAILED;
+        return flags;
+    }
+
+    private int mapperId(RowMapper<?> mapper) {
+        Integer id = mapperIds.get(mapper);
+        if (id == null) {
+            id = nextMapperId++;
+            mapperIds.put(mapper, id);
+        }
+        return id;
+    }
+
+    private void fail(IOException e) {
+        stopped = true;
+        logger.warning("[ByteLib-DB] Workload recording to " + file + " stopped after " + records + " calls: " + e);
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (stopped) return;
+        stopped = true;
+        try {
+            out.close();
+            logger.info("[ByteLib-DB] Recorded " + records + " calls to " + file);
+        } catch (IOException e) {
+            logger.warning("[ByteLib-DB] Finishing workload recording " + file + " failed: " + e);
+        }
+    }
+}
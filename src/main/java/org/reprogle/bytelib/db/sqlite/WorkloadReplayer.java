@@ -0,0 +1,455 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.api.Row;
+import org.reprogle.bytelib.db.api.RowMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Replays a workload recorded with {@link SqliteDatabase#startRecording} against a copy of the database, so cache,
+ * page-cache, and journal settings can be compared offline without a server.
+ * <p>
+ * Calls recorded on the main thread run one after another on the replay thread, which stands in for the main thread
+ * (with the recorded tick, so tick budgets apply as they did live). Calls that ran on the DB thread are resubmitted
+ * through the async API, and calls from other threads run on a small pool. The original database is never written;
+ * the replay works on a copy in a temporary directory that is deleted afterwards.
+ * <p>
+ * Run from the command line with paper-api and sqlite-jdbc on the classpath:
+ * <pre>
+ * java -cp bytelib.jar:paper-api.jar:sqlite-jdbc.jar org.reprogle.bytelib.db.sqlite.WorkloadReplayer \
+ *     workload.blwt plugins/MyPlugin/data.db --page-cache balanced --cache-ttl-ms 60000
+ * </pre>
+ */
+public final class WorkloadReplayer {
+    private static final String USAGE = """
+            Usage: WorkloadReplayer <trace> <database> [options]
+              --timing asap|recorded     Run calls back to back (default) or at their recorded offsets
+              --threads <n>              Pool size for calls recorded off the main and DB threads (default 4)
+              --journal <mode>           PRAGMA journal_mode (default WAL)
+              --synchronous <mode>       PRAGMA synchronous (default NORMAL)
+              --page-cache <preset>      sqlite | low-memory | balanced | read-heavy-mmap
+              --cache-ttl-ms <ms>        Query cache TTL
+              --cache-refresh-ms <ms>    Query cache refresh-after
+              --cache-max <n>            Query cache size; 0 disables the cache
+              --no-stale                 Do not serve stale entries while refreshing
+              --main-timeout-ms <ms>     Main-thread timeout; 0 disables it
+            """;
+
+    private WorkloadReplayer() {
+    }
+
+    public enum Timing {
+        /**
+         * Issue every call as soon as the previous main-thread call returns.
+         */
+        ASAP,
+        /**
+         * Wait for each call's recorded offset, reproducing the original pacing.
+         */
+        RECORDED
+    }
+
+    /**
+     * @param recorded What the trace itself measured
+     * @param replayed What the replay measured
+     */
+    public record Report(Path trace, SqliteConfig config, Stats recorded, Stats replayed) {
+        public void print(PrintStream out) {
+            out.println("Workload " + trace.getFileName());
+            out.printf(Locale.ROOT, "%-28s %16s %16s%n", "", "recorded", "replayed");
+            row(out, "calls", recorded.calls(), replayed.calls());
+            row(out, "failures", recorded.failures(), replayed.failures());
+            out.printf(Locale.ROOT, "%-28s %16.1f %16.1f%n", "throughput (calls/s)", recorded.callsPerSecond(), replayed.callsPerSecond());
+            out.printf(Locale.ROOT, "%-28s %15.1f%% %15.1f%%%n", "query cache hit ratio", recorded.cacheHitRatio() * 100, replayed.cacheHitRatio() * 100);
+            latency(out, "query", recorded.queries(), replayed.queries());
+            latency(out, "execute", recorded.executes(), replayed.executes());
+            latency(out, "transaction", recorded.transactions(), replayed.transactions());
+            millis(out, "main-thread DB time", recorded.mainThreadNanos(), replayed.mainThreadNanos());
+            millis(out, "worst tick", recorded.maxTickNanos(), replayed.maxTickNanos());
+            row(out, "ticks with DB work", recorded.ticks(), replayed.ticks());
+        }
+
+        private static void row(PrintStream out, String label, long a, long b) {
+            out.printf(Locale.ROOT, "%-28s %16d %16d%n", label, a, b);
+        }
+
+        private static void millis(PrintStream out, String label, long aNanos, long bNanos) {
+            out.printf(Locale.ROOT, "%-28s %14.3fms %14.3fms%n", label, aNanos / 1e6, bNanos / 1e6);
+        }
+
+        private static void latency(PrintStream out, String label, Latency a, Latency b) {
+            if (a.count() == 0 && b.count() == 0) return;
+            millis(out, label + " p50", a.p50Nanos(), b.p50Nanos());
+            millis(out, label + " p95", a.p95Nanos(), b.p95Nanos());
+            millis(out, label + " p99", a.p99Nanos(), b.p99Nanos());
+            millis(out, label + " max", a.maxNanos(), b.maxNanos());
+        }
+    }
+
+    /**
+     * @param spanNanos       Wall time from the first call starting to the last one finishing
+     * @param cacheHitRatio   Share of queries served without loading them for the caller
+     * @param mainThreadNanos Total time main-thread callers spent inside the database
+     * @param maxTickNanos    The most main-thread DB time spent in any single tick
+     * @param ticks           How many distinct ticks made main-thread DB calls
+     */
+    public record Stats(
+            long calls,
+            long failures,
+            long spanNanos,
+            double callsPerSecond,
+            Latency queries,
+            Latency executes,
+            Latency transactions,
+            double cacheHitRatio,
+            long mainThreadNanos,
+            long maxTickNanos,
+            long ticks
+    ) {
+    }
+
+    public record Latency(long count, long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos) {
+        static Latency of(long[] sortedNanos, int count) {
+            if (count == 0) return new Latency(0, 0, 0, 0, 0);
+            return new Latency(count, percentile(sortedNanos, count, 0.50), percentile(sortedNanos, count, 0.95),
+                    percentile(sortedNanos, count, 0.99), sortedNanos[count - 1]);
+        }
+
+        private static long percentile(long[] sorted, int count, double p) {
+            int index = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+
+    // ----------------------
+    // Replay
+    // ----------------------
+
+    /**
+     * Replays {@code trace} against a temporary copy of {@code database} opened with {@code config}.
+     *
+     * @param threads Pool size for calls that were recorded on threads other than the main and DB threads
+     */
+    public static Report replay(Path trace, Path database, SqliteConfig config, Timing timing, int threads) throws IOException {
+        Objects.requireNonNull(trace, "trace");
+        Objects.requireNonNull(database, "database");
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(timing, "timing");
+
+        Stats recorded = analyze(trace);
+
+        Path work = Files.createTempDirectory("bytelib-replay-");
+        try {
+            Path copy = snapshot(database, work.resolve(database.getFileName()));
+
+            Path replayTrace = work.resolve("replay.blwt");
+            run(trace, copy, replayTrace, config, timing, threads);
+            return new Report(trace, config, recorded, analyze(replayTrace));
+        } finally {
+            deleteRecursively(work);
+        }
+    }
+
+    /**
+     * Copies {@code database} with {@code VACUUM INTO}, which reads one consistent snapshot (WAL included) even while a
+     * server is writing to it. Copying the files one by one could pair a database file with a newer WAL.
+     */
+    private static Path snapshot(Path database, Path copy) throws IOException {
+        try {
+            return new SqliteBackup(database, SqliteConfig.defaults()).copyTo(copy);
+        } catch (SQLException e) {
+            throw new IOException("Could not copy " + database, e);
+        }
+    }
+
+    private static void run(Path trace, Path dbFile, Path replayTrace, SqliteConfig config, Timing timing, int threads) throws IOException {
+        ReplayServer server = new ReplayServer(Thread.currentThread());
+        Logger logger = Logger.getLogger("ByteLib-Replay");
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "bytelib-replay-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<Integer, RowMapper<Object>> mappers = new HashMap<>();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+
+        try (SqliteDatabase db = new SqliteDatabase(logger, dbFile, config, server);
+             WorkloadTrace.Reader reader = new WorkloadTrace.Reader(trace)) {
+            db.startRecording(replayTrace);
+            long start = System.nanoTime();
+
+            WorkloadTrace.Op op;
+            while ((op = reader.next()) != null) {
+                if (timing == Timing.RECORDED) {
+                    long wait = start + TimeUnit.MICROSECONDS.toNanos(op.offsetMicros()) - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+
+                WorkloadTrace.Op call = op;
+                switch (op.origin()) {
+                    case WorkloadTrace.ORIGIN_MAIN -> {
+                        server.tick = op.tick();
+                        try {
+                            dispatch(db, call, mappers);
+                        } catch (RuntimeException ignored) {
+                            // Failures are recorded in the replay trace
+                        }
+                    }
+                    case WorkloadTrace.ORIGIN_DB -> pending.add(dispatchAsync(db, call, mappers));
+                    default -> pending.add(CompletableFuture.runAsync(() -> dispatch(db, call, mappers), pool));
+                }
+                if (pending.size() >= 4096) pending.removeIf(CompletableFuture::isDone);
+            }
+
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).handle((r, e) -> null).join();
+            db.stopRecording();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void dispatch(SqliteDatabase db, WorkloadTrace.Op op, Map<Integer, RowMapper<Object>> mappers) {
+        switch (op.kind()) {
+            case WorkloadTrace.QUERY -> db.query(op.sql(), mapper(mappers, op.mapperId()), op.params());
+            case WorkloadTrace.EXECUTE -> db.execute(op.sql(), op.params());
+            default -> db.transaction(tx -> replayStatements(tx, op, mappers));
+        }
+    }
+
+    private static CompletableFuture<?> dispatchAsync(SqliteDatabase db, WorkloadTrace.Op op, Map<Integer, RowMapper<Object>> mappers) {
+        return switch (op.kind()) {
+            case WorkloadTrace.QUERY -> db.queryAsync(op.sql(), mapper(mappers, op.mapperId()), op.params());
+            case WorkloadTrace.EXECUTE -> db.executeAsync(op.sql(), op.params());
+            default -> db.transactionAsync(tx -> replayStatements(tx, op, mappers));
+        };
+    }
+
+    private static Void replayStatements(SqliteDatabase.Tx tx, WorkloadTrace.Op op, Map<Integer, RowMapper<Object>> mappers) {
+        for (WorkloadTrace.Statement st : op.statements()) {
+            if (st.query()) {
+                tx.query(st.sql(), mapper(mappers, st.mapperId()), st.params());
+            } else {
+                tx.execute(st.sql(), st.params());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One mapper per recorded mapper id, so the query cache keys entries exactly as it did live.
+     */
+    private static RowMapper<Object> mapper(Map<Integer, RowMapper<Object>> mappers, int id) {
+        synchronized (mappers) {
+            return mappers.computeIfAbsent(id, ReplayMapper::new);
+        }
+    }
+
+    private record ReplayMapper(int id) implements RowMapper<Object> {
+        @Override
+        public Object map(Row row) {
+            return Boolean.TRUE;
+        }
+    }
+
+    private static final class ReplayServer implements ServerThread {
+        private final Thread main;
+        private volatile long tick;
+
+        private ReplayServer(Thread main) {
+            this.main = main;
+        }
+
+        @Override
+        public boolean isPrimaryThread() {
+            return Thread.currentThread() == main;
+        }
+
+        @Override
+        public long currentTick() {
+            return tick;
+        }
+    }
+
+    // ----------------------
+    // Analysis
+    // ----------------------
+
+    /**
+     * Summarizes a trace. Recorded and replayed traces go through the same code, so their numbers compare directly.
+     */
+    public static Stats analyze(Path trace) throws IOException {
+        LongList queries = new LongList();
+        LongList executes = new LongList();
+        LongList transactions = new LongList();
+        Map<Long, Long> perTick = new HashMap<>();
+        long failures = 0;
+        long hits = 0;
+        long mainNanos = 0;
+        long firstStartMicros = Long.MAX_VALUE;
+        long lastEndNanos = 0;
+
+        try (WorkloadTrace.Reader reader = new WorkloadTrace.Reader(trace)) {
+            WorkloadTrace.Op op;
+            while ((op = reader.next()) != null) {
+                switch (op.kind()) {
+                    case WorkloadTrace.QUERY -> {
+                        queries.add(op.durationNanos());
+                        if (op.hit()) hits++;
+                    }
+                    case WorkloadTrace.EXECUTE -> executes.add(op.durationNanos());
+                    default -> transactions.add(op.durationNanos());
+                }
+                if (op.failed()) failures++;
+                if (op.origin() == WorkloadTrace.ORIGIN_MAIN) {
+                    mainNanos += op.durationNanos();
+                    perTick.merge(op.tick(), op.durationNanos(), Long::sum);
+                }
+                firstStartMicros = Math.min(firstStartMicros, op.offsetMicros());
+                lastEndNanos = Math.max(lastEndNanos, TimeUnit.MICROSECONDS.toNanos(op.offsetMicros()) + op.durationNanos());
+            }
+        }
+
+        long calls = queries.size + executes.size + transactions.size;
+        long span = calls == 0 ? 0 : lastEndNanos - TimeUnit.MICROSECONDS.toNanos(firstStartMicros);
+        long maxTick = perTick.values().stream().max(Comparator.naturalOrder()).orElse(0L);
+        return new Stats(
+                calls,
+                failures,
+                span,
+                span <= 0 ? 0 : calls / (span / 1e9),
+                queries.latency(),
+                executes.latency(),
+                transactions.latency(),
+                queries.size == 0 ? 0 : (double) hits / queries.size,
+                mainNanos,
+                maxTick,
+                perTick.size()
+        );
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        Latency latency() {
+            Arrays.sort(values, 0, size);
+            return Latency.of(values, size);
+        }
+    }
+
+    // ----------------------
+    // Command line
+    // ----------------------
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        SqliteConfig base = SqliteConfig.defaults();
+        String journal = base.journalMode();
+        String synchronous = base.synchronous();
+        Duration mainTimeout = base.mainThreadTimeout();
+        SqliteConfig.PageCacheConfig pageCache = base.pageCache();
+        SqliteConfig.CacheConfig cache = base.cache();
+        Timing timing = Timing.ASAP;
+        int threads = 4;
+
+        for (int i = 2; i < args.length; i++) {
+            String flag = args[i];
+            if (flag.equals("--no-stale")) {
+                cache = new SqliteConfig.CacheConfig(cache.ttl(), cache.refreshAfter(), false, cache.maxSize());
+                continue;
+            }
+            if (i + 1 >= args.length) usage("Missing value for " + flag);
+            String value = args[++i];
+            switch (flag) {
+                case "--timing" -> timing = Timing.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--journal" -> journal = value;
+                case "--synchronous" -> synchronous = value;
+                case "--main-timeout-ms" -> mainTimeout = Duration.ofMillis(Long.parseLong(value));
+                case "--page-cache" -> pageCache = switch (value.toLowerCase(Locale.ROOT)) {
+                    case "sqlite" -> SqliteConfig.PageCacheConfig.SQLITE_DEFAULTS;
+                    case "low-memory" -> SqliteConfig.PageCacheConfig.LOW_MEMORY;
+                    case "balanced" -> SqliteConfig.PageCacheConfig.BALANCED;
+                    case "read-heavy-mmap" -> SqliteConfig.PageCacheConfig.READ_HEAVY_MMAP;
+                    default -> throw usage("Unknown page cache preset " + value);
+                };
+                case "--cache-ttl-ms" -> cache = new SqliteConfig.CacheConfig(Duration.ofMillis(Long.parseLong(value)),
+                        cache.refreshAfter(), cache.serveStaleWhileRefreshing(), cache.maxSize());
+                case "--cache-refresh-ms" -> cache = new SqliteConfig.CacheConfig(cache.ttl(),
+                        Duration.ofMillis(Long.parseLong(value)), cache.serveStaleWhileRefreshing(), cache.maxSize());
+                case "--cache-max" -> cache = new SqliteConfig.CacheConfig(cache.ttl(), cache.refreshAfter(),
+                        cache.serveStaleWhileRefreshing(), Integer.parseInt(value));
+                default -> throw usage("Unknown option " + flag);
+            }
+        }
+
+        SqliteConfig config = new SqliteConfig(
+                base.foreignKeys(),
+                journal,
+                synchronous,
+                base.busyTimeoutMs(),
+                mainTimeout,
+                SqliteConfig.MainThreadPolicy.ALLOW,
+                base.timeoutBehavior(),
+                base.slowQueryWarnThreshold(),
+                cache,
+                base.backup(),
+                base.checkpoint(),
+                pageCache,
+                base.tickBudget(),
+                base.warmup(),
+                base.cancellation()
+        );
+
+        replay(Path.of(args[0]), Path.of(args[1]), config, timing, threads).print(System.out);
+    }
+
+    private static IllegalArgumentException usage(String problem) {
+        System.err.println(problem);
+        System.err.print(USAGE);
+        System.exit(2);
+        return new IllegalArgumentException(problem);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException ignored) {
+        }
+    }
+}
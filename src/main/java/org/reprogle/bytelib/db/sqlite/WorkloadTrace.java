@@ -0,0 +1,353 @@
+package org.reprogle.bytelib.db.sqlite;
+
+import org.reprogle.bytelib.db.api.BlockPos;
+import org.reprogle.bytelib.db.api.Param;
+import org.reprogle.bytelib.db.api.SqlType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The binary format written by {@link WorkloadRecorder} and read by {@link WorkloadReplayer}.
+ * <p>
+ * A trace starts with a header ({@code "BLWT"}, format version, wall-clock start) followed by records. Each distinct
+ * SQL string is written once as a dictionary record and referenced by id afterwards. Integers are varints, so a
+ * typical cache-hit query record is around a dozen bytes.
+ * <pre>
+ * S  id sql                                                    SQL dictionary entry
+ * Q  offset duration flags tick sqlId mapperId params          query
+ * E  offset duration flags tick sqlId params                   execute
+ * T  offset duration flags tick count (e|q sqlId [mapperId] params)*   transaction
+ * </pre>
+ * {@code offset} is microseconds since the recording started, {@code duration} is nanoseconds, and {@code flags}
+ * holds the calling thread's origin (main, DB thread, other) plus cache-hit and failure bits.
+ */
+final class WorkloadTrace {
+    static final int MAGIC = 0x424C5754;
+    static final int VERSION = 1;
+
+    static final byte SQL = 'S';
+    static final byte QUERY = 'Q';
+    static final byte EXECUTE = 'E';
+    static final byte TRANSACTION = 'T';
+    static final byte STMT_EXECUTE = 'e';
+    static final byte STMT_QUERY = 'q';
+
+    static final int ORIGIN_MAIN = 0;
+    static final int ORIGIN_DB = 1;
+    static final int ORIGIN_OTHER = 2;
+    static final int ORIGIN_MASK = 0b11;
+    static final int FLAG_HIT = 0b100;
+    static final int FLAG_FAILED = 0b1000;
+
+    private static final int T_NULL = 0;
+    private static final int T_I32 = 1;
+    private static final int T_I64 = 2;
+    private static final int T_F64 = 3;
+    private static final int T_TEXT = 4;
+    private static final int T_BLOB = 5;
+    private static final int T_UUID = 6;
+    private static final int T_BOOL = 7;
+    private static final int T_BLOCK_POS = 8;
+    private static final int T_BLOCK_POS_MORTON = 9;
+    // Custom SqlTypes are recorded as their value's text and replayed as TEXT
+    private static final int T_OTHER = 10;
+
+    private WorkloadTrace() {
+    }
+
+    /**
+     * One recorded call. {@code sql}, {@code mapperId}, and {@code params} are unused for transactions, whose work is
+     * in {@code statements}.
+     */
+    record Op(byte kind, long offsetMicros, long durationNanos, int flags, long tick,
+              String sql, int mapperId, Param<?>[] params, List<Statement> statements) {
+        int origin() {
+            return flags & ORIGIN_MASK;
+        }
+
+        boolean hit() {
+            return (flags & FLAG_HIT) != 0;
+        }
+
+        boolean failed() {
+            return (flags & FLAG_FAILED) != 0;
+        }
+    }
+
+    record Statement(boolean query, String sql, int mapperId, Param<?>[] params) {
+    }
+
+    // ----------------------
+    // Writing
+    // ----------------------
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> sqlIds = new HashMap<>();
+
+        Writer(OutputStream out, long startEpochMillis) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+            this.out.writeInt(MAGIC);
+            this.out.writeShort(VERSION);
+            this.out.writeLong(startEpochMillis);
+        }
+
+        /**
+         * Returns the dictionary id of {@code sql}, writing its definition first if it is new.
+         */
+        int sql(String sql) throws IOException {
+            Integer id = sqlIds.get(sql);
+            if (id != null) return id;
+            int next = sqlIds.size();
+            sqlIds.put(sql, next);
+            out.writeByte(SQL);
+            writeVarLong(next);
+            writeString(sql);
+            return next;
+        }
+
+        void header(byte kind, long offsetMicros, long durationNanos, int flags, long tick) throws IOException {
+            out.writeByte(kind);
+            writeVarLong(offsetMicros);
+            writeVarLong(durationNanos);
+            out.writeByte(flags);
+            writeVarLong(tick);
+        }
+
+        void writeByte(int b) throws IOException {
+            out.writeByte(b);
+        }
+
+        void writeVarLong(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        void writeParams(Param<?>[] params) throws IOException {
+            if (params == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(params.length);
+            for (Param<?> p : params) writeParam(p);
+        }
+
+        private void writeParam(Param<?> p) throws IOException {
+            Object v = p == null ? null : p.value();
+            if (v == null) {
+                out.writeByte(T_NULL);
+                return;
+            }
+            SqlType<?> type = p.type();
+            if (type == SqlType.I32) {
+                out.writeByte(T_I32);
+                writeVarLong(zigZag((Integer) v));
+            } else if (type == SqlType.I64) {
+                out.writeByte(T_I64);
+                writeVarLong(zigZag((Long) v));
+            } else if (type == SqlType.F64) {
+                out.writeByte(T_F64);
+                out.writeDouble((Double) v);
+            } else if (type == SqlType.TEXT) {
+                out.writeByte(T_TEXT);
+                writeString((String) v);
+            } else if (type == SqlType.BLOB) {
+                byte[] bytes = (byte[]) v;
+                out.writeByte(T_BLOB);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            } else if (type == SqlType.UUID_TEXT) {
+                UUID uuid = (UUID) v;
+                out.writeByte(T_UUID);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else if (type == SqlType.BOOLEAN) {
+                out.writeByte(T_BOOL);
+                out.writeBoolean((Boolean) v);
+            } else if (type == SqlType.BLOCK_POS) {
+                out.writeByte(T_BLOCK_POS);
+                out.writeLong(((BlockPos) v).pack());
+            } else if (type == SqlType.BLOCK_POS_MORTON) {
+                out.writeByte(T_BLOCK_POS_MORTON);
+                out.writeLong(((BlockPos) v).packMorton());
+            } else {
+                out.writeByte(T_OTHER);
+                writeString(String.valueOf(v));
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // ----------------------
+    // Reading
+    // ----------------------
+
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final List<String> sql = new ArrayList<>();
+        private final long startEpochMillis;
+
+        Reader(Path file) throws IOException {
+            this(Files.newInputStream(file));
+        }
+
+        Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+            if (this.in.readInt() != MAGIC) throw new IOException("Not a ByteLib workload trace");
+            int version = this.in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported trace version " + version);
+            this.startEpochMillis = this.in.readLong();
+        }
+
+        long startEpochMillis() {
+            return startEpochMillis;
+        }
+
+        /**
+         * Returns the next call in the trace, or null at the end. A trace cut short by a crash ends at its last
+         * complete record.
+         */
+        Op next() throws IOException {
+            while (true) {
+                int kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException end) {
+                    return null;
+                }
+                try {
+                    if (kind == SQL) {
+                        int id = (int) readVarLong();
+                        String text = readString();
+                        while (sql.size() <= id) sql.add(null);
+                        sql.set(id, text);
+                        continue;
+                    }
+                    return readOp((byte) kind);
+                } catch (EOFException truncated) {
+                    return null;
+                }
+            }
+        }
+
+        private Op readOp(byte kind) throws IOException {
+            long offset = readVarLong();
+            long duration = readVarLong();
+            int flags = in.readUnsignedByte();
+            long tick = readVarLong();
+            switch (kind) {
+                case QUERY -> {
+                    String text = sql.get((int) readVarLong());
+                    int mapperId = (int) readVarLong();
+                    return new Op(kind, offset, duration, flags, tick, text, mapperId, readParams(), List.of());
+                }
+                case EXECUTE -> {
+                    String text = sql.get((int) readVarLong());
+                    return new Op(kind, offset, duration, flags, tick, text, -1, readParams(), List.of());
+                }
+                case TRANSACTION -> {
+                    int count = (int) readVarLong();
+                    List<Statement> statements = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        boolean query = in.readByte() == STMT_QUERY;
+                        String text = sql.get((int) readVarLong());
+                        int mapperId = query ? (int) readVarLong() : -1;
+                        statements.add(new Statement(query, text, mapperId, readParams()));
+                    }
+                    return new Op(kind, offset, duration, flags, tick, null, -1, new Param<?>[0], statements);
+                }
+                default -> throw new IOException("Corrupt trace: unknown record type " + kind);
+            }
+        }
+
+        private Param<?>[] readParams() throws IOException {
+            int count = (int) readVarLong();
+            Param<?>[] params = new Param<?>[count];
+            for (int i = 0; i < count; i++) params[i] = readParam();
+            return params;
+        }
+
+        private Param<?> readParam() throws IOException {
+            int type = in.readUnsignedByte();
+            return switch (type) {
+                case T_NULL -> Param.text(null);
+                case T_I32 -> Param.i32((int) unZigZag(readVarLong()));
+                case T_I64 -> Param.i64(unZigZag(readVarLong()));
+                case T_F64 -> Param.f64(in.readDouble());
+                case T_TEXT, T_OTHER -> Param.text(readString());
+                case T_BLOB -> {
+                    byte[] bytes = new byte[(int) readVarLong()];
+                    in.readFully(bytes);
+                    yield Param.blob(bytes);
+                }
+                case T_UUID -> Param.uuid(new UUID(in.readLong(), in.readLong()));
+                case T_BOOL -> Param.bool(in.readBoolean());
+                case T_BLOCK_POS -> Param.blockPos(BlockPos.unpack(in.readLong()));
+                case T_BLOCK_POS_MORTON -> Param.blockPosMorton(BlockPos.unpackMorton(in.readLong()));
+                default -> throw new IOException("Corrupt trace: unknown parameter type " + type);
+            };
+        }
+
+        private long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Corrupt trace: varint too long");
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[(int) readVarLong()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
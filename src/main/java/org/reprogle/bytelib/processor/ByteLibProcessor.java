@@ -0,0 +1,328 @@
+package org.reprogle.bytelib.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a plugin's {@code PluginWiring} at build time from {@code @Wiring}, {@code @Command} and
+ * {@code @Lifecycle}, so neither the multibinder entries nor the wiring class are written by hand. The generated
+ * class is named {@code <Main>Wiring}, which {@code WiringResolver} finds by its first naming convention.
+ * <p>
+ * Enable it with {@code annotationProcessor("org.reprogle:bytelib:<version>")}. It is an aggregating processor in
+ * Gradle's incremental compilation terms.
+ */
+public final class ByteLibProcessor extends AbstractProcessor {
+    private static final String WIRING = "org.reprogle.bytelib.boot.wiring.Wiring";
+    private static final String COMMAND = "org.reprogle.bytelib.commands.Command";
+    private static final String LIFECYCLE = "org.reprogle.bytelib.boot.lifecycle.Lifecycle";
+    private static final String COMMAND_REGISTRATION = "org.reprogle.bytelib.commands.CommandRegistration";
+    private static final String PLUGIN_LIFECYCLE = "org.reprogle.bytelib.boot.lifecycle.PluginLifecycle";
+    private static final String DEFAULT_STAGE = "DEVELOPMENT";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment env) {
+        super.init(env);
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.filer = env.getFiler();
+        this.messager = env.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(WIRING, COMMAND, LIFECYCLE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (round.processingOver() || annotations.isEmpty()) return false;
+
+        List<TypeElement> mains = annotated(round, WIRING);
+        List<TypeElement> commands = annotated(round, COMMAND);
+        List<TypeElement> lifecycles = annotated(round, LIFECYCLE);
+
+        // Everything the wiring covers is user code, which is all present in the first round that has any of it
+        if (generated) {
+            for (TypeElement late : concat(mains, commands, lifecycles)) {
+                error(late, "@Wiring, @Command and @Lifecycle are not supported on generated classes");
+            }
+            return true;
+        }
+
+        if (mains.isEmpty()) {
+            for (TypeElement orphan : concat(commands, lifecycles)) {
+                error(orphan, "No class annotated with @Wiring in this compilation; annotate the plugin's main class");
+            }
+            return true;
+        }
+        if (mains.size() > 1) {
+            for (TypeElement main : mains) error(main, "Only one class per compilation may be annotated with @Wiring");
+            return true;
+        }
+
+        TypeElement main = mains.getFirst();
+        boolean ok = checkMain(main);
+        for (TypeElement command : commands) ok &= checkBinding(command, COMMAND_REGISTRATION, "@Command", main);
+        for (TypeElement lifecycle : lifecycles) ok &= checkBinding(lifecycle, PLUGIN_LIFECYCLE, "@Lifecycle", main);
+
+        AnnotationMirror wiring = mirror(main, WIRING);
+        List<String> modules = new ArrayList<>();
+        for (TypeElement module : classes(wiring, "modules")) {
+            String construct = moduleConstructor(module, main);
+            if (construct == null) ok = false;
+            else modules.add(construct);
+        }
+        List<TypeElement> prewarm = classes(wiring, "prewarm");
+        String stage = enumValue(wiring, "stage");
+
+        if (!ok) return true;
+        generated = true;
+
+        String wiringName = main.getSimpleName() + "Wiring";
+        String pkg = elements.getPackageOf(main).getQualifiedName().toString();
+        String wiringFqn = pkg.isEmpty() ? wiringName : pkg + "." + wiringName;
+        if (elements.getTypeElement(wiringFqn) != null) {
+            error(main, "@Wiring generates " + wiringFqn + ", which already exists; remove the hand-written wiring");
+            return true;
+        }
+
+        try {
+            writeWiring(pkg, wiringName, wiringFqn, main, modules, commands, lifecycles, stage, prewarm);
+        } catch (IOException e) {
+            error(main, "Could not write the generated wiring: " + e);
+        }
+        return true;
+    }
+
+    // ----------------------
+    // Validation
+    // ----------------------
+
+    private boolean checkMain(TypeElement main) {
+        if (main.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return error(main, "@Wiring must be on the plugin's top-level main class");
+        }
+        return true;
+    }
+
+    private boolean checkBinding(TypeElement type, String iface, String annotation, TypeElement main) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return error(type, annotation + " must be on a concrete class");
+        }
+        if (!types.isAssignable(type.asType(), types.erasure(elements.getTypeElement(iface).asType()))) {
+            return error(type, annotation + " classes must implement " + iface);
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            return error(type, annotation + " must not be on an inner (non-static) class");
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            return error(type, annotation + " must be on a top-level or static nested class");
+        }
+        return checkVisible(type, main, annotation + " classes");
+    }
+
+    /**
+     * The {@code new ...} expression for a module, or null (after reporting why) if it has no usable constructor.
+     */
+    private String moduleConstructor(TypeElement module, TypeElement main) {
+        if (module.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(main, "@Wiring module " + module.getQualifiedName() + " must not be abstract");
+            return null;
+        }
+        if (!checkVisible(module, main, "@Wiring modules")) return null;
+
+        String args = null;
+        for (ExecutableElement ctor : ElementFilter.constructorsIn(module.getEnclosedElements())) {
+            if (!visibleFrom(ctor, main)) continue;
+            List<String> params = ctor.getParameters().stream()
+                    .map(p -> types.erasure(p.asType()).toString())
+                    .toList();
+            if (params.isEmpty() && args == null) {
+                args = "";
+            } else if (params.equals(List.of("io.papermc.paper.plugin.configuration.PluginMeta", "java.nio.file.Path",
+                    "net.kyori.adventure.text.logger.slf4j.ComponentLogger"))) {
+                args = "meta, dataDir, logger";
+            }
+        }
+        if (args == null) {
+            error(main, "@Wiring module " + module.getQualifiedName()
+                    + " needs a constructor taking nothing or (PluginMeta, Path, ComponentLogger)");
+            return null;
+        }
+        return "new " + module.getQualifiedName() + "(" + args + ")";
+    }
+
+    private boolean checkVisible(TypeElement type, TypeElement main, String what) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (!visibleFrom(e, main)) {
+                return error(type, what + " must be public, or package-private in the main class's package");
+            }
+        }
+        return true;
+    }
+
+    private boolean visibleFrom(Element e, TypeElement main) {
+        Set<Modifier> mods = e.getModifiers();
+        if (mods.contains(Modifier.PUBLIC)) return true;
+        if (mods.contains(Modifier.PRIVATE)) return false;
+        PackageElement own = elements.getPackageOf(e);
+        return own.equals(elements.getPackageOf(main));
+    }
+
+    // ----------------------
+    // Output
+    // ----------------------
+
+    private void writeWiring(String pkg, String name, String fqn, TypeElement main, List<String> modules, List<TypeElement> commands,
+                             List<TypeElement> lifecycles, String stage, List<TypeElement> prewarm) throws IOException {
+        StringBuilder src = new StringBuilder();
+        if (!pkg.isEmpty()) src.append("package ").append(pkg).append(";\n\n");
+        src.append("import com.google.inject.AbstractModule;\n")
+                .append("import com.google.inject.Key;\n")
+                .append("import com.google.inject.Module;\n")
+                .append("import com.google.inject.Stage;\n")
+                .append("import com.google.inject.multibindings.Multibinder;\n")
+                .append("import io.papermc.paper.plugin.configuration.PluginMeta;\n")
+                .append("import net.kyori.adventure.text.logger.slf4j.ComponentLogger;\n")
+                .append("import org.reprogle.bytelib.boot.lifecycle.PluginLifecycle;\n")
+                .append("import org.reprogle.bytelib.boot.wiring.PluginWiring;\n")
+                .append("import org.reprogle.bytelib.commands.CommandRegistration;\n\n")
+                .append("import java.nio.file.Path;\n")
+                .append("import java.util.List;\n")
+                .append("import java.util.Set;\n\n")
+                .append("/**\n * Generated by ByteLibProcessor from {@code @Wiring} on {@link ")
+                .append(main.getSimpleName()).append("}. Do not edit.\n */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(ByteLibProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(name).append(" implements PluginWiring {\n")
+                .append("    @Override\n")
+                .append("    public List<Module> modules(PluginMeta meta, Path dataDir, ComponentLogger logger) {\n")
+                .append("        return List.of(");
+        for (String module : modules) src.append("\n                ").append(module).append(",");
+        src.append("\n                new Bindings()\n        );\n    }\n");
+
+        if (!DEFAULT_STAGE.equals(stage)) {
+            src.append("\n    @Override\n    public Stage stage() {\n        return Stage.").append(stage).append(";\n    }\n");
+        }
+        if (!prewarm.isEmpty()) {
+            src.append("\n    @Override\n    public Set<Key<?>> prewarm() {\n        return Set.of(");
+            for (int i = 0; i < prewarm.size(); i++) {
+                src.append(i == 0 ? "" : ", ").append("Key.get(").append(prewarm.get(i).getQualifiedName()).append(".class)");
+            }
+            src.append(");\n    }\n");
+        }
+
+        src.append("\n    private static final class Bindings extends AbstractModule {\n")
+                .append("        @Override\n")
+                .append("        protected void configure() {\n")
+                .append("            Multibinder<CommandRegistration> commands = Multibinder.newSetBinder(binder(), CommandRegistration.class);\n");
+        for (TypeElement command : commands) {
+            src.append("            commands.addBinding().to(").append(command.getQualifiedName()).append(".class);\n");
+        }
+        src.append("\n            Multibinder<PluginLifecycle> lifecycles = Multibinder.newSetBinder(binder(), PluginLifecycle.class);\n");
+        for (TypeElement lifecycle : lifecycles) {
+            src.append("            lifecycles.addBinding().to(").append(lifecycle.getQualifiedName()).append(".class);\n");
+        }
+        src.append("        }\n    }\n}\n");
+
+        List<Element> origins = new ArrayList<>(concat(List.of(main), commands, lifecycles));
+        try (Writer out = filer.createSourceFile(fqn, origins.toArray(Element[]::new)).openWriter()) {
+            out.write(src.toString());
+        }
+    }
+
+    // ----------------------
+    // Helpers
+    // ----------------------
+
+    private List<TypeElement> annotated(RoundEnvironment round, String annotation) {
+        TypeElement type = elements.getTypeElement(annotation);
+        if (type == null) return List.of();
+        // Sorted so the generated source is the same on every build
+        List<TypeElement> out = new ArrayList<>(ElementFilter.typesIn(round.getElementsAnnotatedWith(type)));
+        out.sort(Comparator.comparing(t -> t.getQualifiedName().toString()));
+        return out;
+    }
+
+    private AnnotationMirror mirror(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("Missing @" + annotation + " on " + element);
+    }
+
+    /**
+     * Class values are read from the mirror, since reading them through the annotation itself would need the classes
+     * to be loaded.
+     */
+    private List<TypeElement> classes(AnnotationMirror mirror, String attribute) {
+        List<TypeElement> out = new ArrayList<>();
+        for (Object item : (List<?>) value(mirror, attribute)) {
+            TypeMirror type = (TypeMirror) ((AnnotationValue) item).getValue();
+            out.add((TypeElement) ((DeclaredType) type).asElement());
+        }
+        return out;
+    }
+
+    private String enumValue(AnnotationMirror mirror, String attribute) {
+        return ((Element) value(mirror, attribute)).getSimpleName().toString();
+    }
+
+    private Object value(AnnotationMirror mirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e
+                : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals(attribute)) return e.getValue().getValue();
+        }
+        throw new IllegalStateException("Missing attribute " + attribute + " on " + mirror);
+    }
+
+    @SafeVarargs
+    private static List<TypeElement> concat(List<TypeElement>... lists) {
+        List<TypeElement> out = new ArrayList<>();
+        for (List<TypeElement> list : lists) out.addAll(list);
+        return out;
+    }
+
+    private boolean error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+}